@@ -0,0 +1,21 @@
+#!/usr/bin/env bash
+#
+# Open-loop load test of the journal API with latency and throughput gates.
+#
+# Usage: scripts/load-test.sh [--name=value...]
+#   Without --base-url the app is started in-process on the embedded profile.
+#   Run with --help for the options and their defaults.
+#
+# Prints per-stream latency percentiles, writes HdrHistogram distributions to
+# --report-dir (default target/load-test) and exits non-zero when a p99,
+# throughput or error-rate target is missed.
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+sh ./mvnw -B -q -DskipTests test-compile dependency:build-classpath \
+  -Dmdep.outputFile=target/cp.txt
+
+exec java ${JAVA_OPTS:-} -cp "target/test-classes:target/classes:$(cat target/cp.txt)" \
+  com.naveen.springboot.journal.loadtest.JournalLoadTest "$@"
@@ -0,0 +1,114 @@
+#!/usr/bin/env bash
+#
+# Compares cold start time and resident memory of the journal app across
+#   jar     - default build (JPA/H2/MySQL on the classpath)
+#   aot-cds - -Dfast-startup build, Spring AOT + class-data sharing archive
+#   native  - -Dfast-startup -Pnative GraalVM image
+#
+# Usage: scripts/startup-benchmark.sh [runs] [variant...]
+#   RUNS defaults to 5, variants default to "jar aot-cds native".
+#   Extra application arguments can be passed in APP_ARGS, e.g.
+#   APP_ARGS="--spring.data.mongodb.uri=mongodb://localhost:27017/journaldb"
+#
+# Each run starts the app, waits for "Started JournalApplication", records the
+# reported startup time and VmRSS, then stops it. Results are printed as a table
+# and written to results.csv in BENCH_DIR (default /tmp/journal-startup-benchmark,
+# kept outside target/ because every build variant starts with a clean).
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS="${1:-5}"
+shift || true
+VARIANTS=("$@")
+if [ ${#VARIANTS[@]} -eq 0 ]; then
+  VARIANTS=(jar aot-cds native)
+fi
+
+APP_ARGS="${APP_ARGS:-}"
+WORK_DIR="${BENCH_DIR:-/tmp/journal-startup-benchmark}"
+RESULTS="$WORK_DIR/results.csv"
+JAR_NAME="journal-0.0.1-SNAPSHOT.jar"
+MVN="sh ./mvnw -B -q -DskipTests"
+
+mkdir -p "$WORK_DIR"
+
+build_jar() {
+  $MVN clean package
+  rm -rf "$WORK_DIR/jar"
+  mkdir -p "$WORK_DIR/jar"
+  cp "target/$JAR_NAME" "$WORK_DIR/jar/"
+}
+
+build_aot_cds() {
+  $MVN -Dfast-startup clean package
+  rm -rf "$WORK_DIR/aot-cds"
+  java -Djarmode=tools -jar "target/$JAR_NAME" extract --destination "$WORK_DIR/aot-cds"
+  # Training run: refresh the context once and dump the loaded classes.
+  # shellcheck disable=SC2086
+  java -XX:ArchiveClassesAtExit="$WORK_DIR/aot-cds/app.jsa" -Dspring.aot.enabled=true \
+    -Dspring.context.exit=onRefresh -jar "$WORK_DIR/aot-cds/$JAR_NAME" $APP_ARGS
+}
+
+build_native() {
+  $MVN -Dfast-startup -Pnative clean native:compile
+  rm -rf "$WORK_DIR/native"
+  mkdir -p "$WORK_DIR/native"
+  cp target/journal "$WORK_DIR/native/"
+}
+
+command_for() {
+  case "$1" in
+    jar) echo "java -jar $WORK_DIR/jar/$JAR_NAME" ;;
+    aot-cds) echo "java -XX:SharedArchiveFile=$WORK_DIR/aot-cds/app.jsa -Dspring.aot.enabled=true -jar $WORK_DIR/aot-cds/$JAR_NAME" ;;
+    native) echo "$WORK_DIR/native/journal" ;;
+    *) echo "Unknown variant: $1" >&2; exit 1 ;;
+  esac
+}
+
+# Prints "<startup seconds>,<rss kB>" for one cold start.
+measure_once() {
+  local cmd="$1"
+  local log="$WORK_DIR/run.log"
+  # shellcheck disable=SC2086
+  $cmd $APP_ARGS > "$log" 2>&1 &
+  local pid=$!
+  local started=""
+  for _ in $(seq 1 600); do
+    started=$(grep -oE 'Started JournalApplication in [0-9.]+ seconds' "$log" | grep -oE '[0-9.]+' | head -1 || true)
+    if [ -n "$started" ] || ! kill -0 "$pid" 2>/dev/null; then
+      break
+    fi
+    sleep 0.1
+  done
+  local rss
+  rss=$(awk '/VmRSS/ {print $2}' "/proc/$pid/status" 2>/dev/null || echo "")
+  kill "$pid" 2>/dev/null || true
+  wait "$pid" 2>/dev/null || true
+  if [ -z "$started" ]; then
+    echo "Application did not start, see $log" >&2
+    exit 1
+  fi
+  echo "$started,$rss"
+}
+
+echo "variant,run,startup_seconds,rss_kb" > "$RESULTS"
+for variant in "${VARIANTS[@]}"; do
+  echo "Building $variant..." >&2
+  case "$variant" in
+    jar) build_jar ;;
+    aot-cds) build_aot_cds ;;
+    native) build_native ;;
+  esac
+  cmd=$(command_for "$variant")
+  for run in $(seq 1 "$RUNS"); do
+    echo "$variant,$run,$(measure_once "$cmd")" >> "$RESULTS"
+  done
+done
+
+awk -F, 'NR > 1 { t[$1] += $3; m[$1] += $4; n[$1]++ }
+  END {
+    printf "%-10s %14s %12s\n", "variant", "startup (s)", "rss (MB)"
+    for (v in n) printf "%-10s %14.3f %12.1f\n", v, t[v] / n[v], m[v] / n[v] / 1024
+  }' "$RESULTS"
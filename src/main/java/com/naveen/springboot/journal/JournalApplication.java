@@ -2,16 +2,10 @@ package com.naveen.springboot.journal;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
-import org.springframework.data.mongodb.MongoDatabaseFactory;
-import org.springframework.data.mongodb.MongoTransactionManager;
-import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
-import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 @SpringBootApplication
 @EnableTransactionManagement
-@EnableMongoRepositories(basePackages = "com.naveen.springboot.journal.repository")
 public class JournalApplication {
 
   public static void main(String[] args) {
@@ -19,12 +13,4 @@ public class JournalApplication {
   }
 
 
-  @Bean
-  public PlatformTransactionManager transactionManager(MongoDatabaseFactory dbFactory) {
-    return new MongoTransactionManager(dbFactory);
-  }
-
-
 }
-
-
@@ -0,0 +1,44 @@
+package com.naveen.springboot.journal.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Registers CBOR ({@code application/cbor}) and Smile ({@code application/x-jackson-smile})
+ * converters, selected through the Accept and Content-Type headers. JSON stays the default.
+ */
+@Configuration
+public class BinaryFormatsConfig {
+
+  @Bean
+  public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(
+      Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2CborHttpMessageConverter(cborMapper(builder));
+  }
+
+  @Bean
+  public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(
+      Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2SmileHttpMessageConverter(smileMapper(builder));
+  }
+
+  public static ObjectMapper cborMapper(Jackson2ObjectMapperBuilder builder) {
+    ObjectMapper mapper = builder.factory(new CBORFactory()).build();
+    return mapper.registerModule(new BsonTypesModule());
+  }
+
+  public static ObjectMapper smileMapper(Jackson2ObjectMapperBuilder builder) {
+    SmileFactory factory = SmileFactory.builder()
+        .disable(SmileGenerator.Feature.ENCODE_BINARY_AS_7BIT)
+        .build();
+    ObjectMapper mapper = builder.factory(factory).build();
+    return mapper.registerModule(new BsonTypesModule());
+  }
+}
@@ -0,0 +1,72 @@
+package com.naveen.springboot.journal.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import org.bson.types.ObjectId;
+
+/**
+ * Compact encodings for the binary wire formats: {@link ObjectId} as its 12 raw bytes and
+ * {@link LocalDateTime} as epoch milliseconds (the precision MongoDB stores). Hex strings and
+ * ISO-8601 text are still accepted on read.
+ */
+public class BsonTypesModule extends SimpleModule {
+
+  public BsonTypesModule() {
+    super("BsonTypesModule");
+    addSerializer(ObjectId.class, new ObjectIdSerializer());
+    addDeserializer(ObjectId.class, new ObjectIdDeserializer());
+    addSerializer(LocalDateTime.class, new LocalDateTimeSerializer());
+    addDeserializer(LocalDateTime.class, new LocalDateTimeDeserializer());
+  }
+
+  static class ObjectIdSerializer extends JsonSerializer<ObjectId> {
+
+    @Override
+    public void serialize(ObjectId value, JsonGenerator gen, SerializerProvider serializers)
+        throws IOException {
+      gen.writeBinary(value.toByteArray());
+    }
+  }
+
+  static class ObjectIdDeserializer extends JsonDeserializer<ObjectId> {
+
+    @Override
+    public ObjectId deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+      if (p.currentToken() == JsonToken.VALUE_STRING) {
+        return new ObjectId(p.getText());
+      }
+      return new ObjectId(p.getBinaryValue());
+    }
+  }
+
+  static class LocalDateTimeSerializer extends JsonSerializer<LocalDateTime> {
+
+    @Override
+    public void serialize(LocalDateTime value, JsonGenerator gen, SerializerProvider serializers)
+        throws IOException {
+      gen.writeNumber(value.toInstant(ZoneOffset.UTC).toEpochMilli());
+    }
+  }
+
+  static class LocalDateTimeDeserializer extends JsonDeserializer<LocalDateTime> {
+
+    @Override
+    public LocalDateTime deserialize(JsonParser p, DeserializationContext ctxt)
+        throws IOException {
+      if (p.currentToken() == JsonToken.VALUE_STRING) {
+        return LocalDateTime.parse(p.getText());
+      }
+      return LocalDateTime.ofInstant(Instant.ofEpochMilli(p.getLongValue()), ZoneOffset.UTC);
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package com.naveen.springboot.journal.config;
+
+import com.naveen.springboot.journal.service.Bulkhead;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Separate executors for cheap reads, transactional writes, admin operations and long-running
+ * attachment uploads, sized through
+ * {@code journal.bulkhead.*}.
+ */
+@Configuration
+@EnableConfigurationProperties(BulkheadProperties.class)
+public class BulkheadConfig {
+
+  @Bean
+  public Bulkhead readBulkhead(BulkheadProperties properties) {
+    return bulkhead("read", properties.getRead());
+  }
+
+  @Bean
+  public Bulkhead writeBulkhead(BulkheadProperties properties) {
+    return bulkhead("write", properties.getWrite());
+  }
+
+  @Bean
+  public Bulkhead adminBulkhead(BulkheadProperties properties) {
+    return bulkhead("admin", properties.getAdmin());
+  }
+
+  @Bean
+  public Bulkhead attachmentBulkhead(BulkheadProperties properties) {
+    return bulkhead("attachment", properties.getAttachment());
+  }
+
+  private Bulkhead bulkhead(String name, BulkheadProperties.Pool pool) {
+    return new Bulkhead(name, pool.getCoreSize(), pool.getMaxSize(), pool.getQueueCapacity(),
+        pool.getTimeout());
+  }
+}
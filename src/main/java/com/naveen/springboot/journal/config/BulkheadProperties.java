@@ -0,0 +1,28 @@
+package com.naveen.springboot.journal.config;
+
+import java.time.Duration;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "journal.bulkhead")
+@Data
+public class BulkheadProperties {
+
+  private Pool read = new Pool(16, 32, 200, Duration.ofSeconds(5));
+  private Pool write = new Pool(8, 8, 50, Duration.ofSeconds(10));
+  private Pool admin = new Pool(2, 2, 10, Duration.ofSeconds(30));
+  private Pool attachment = new Pool(4, 4, 20, Duration.ofMinutes(5));
+
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Pool {
+
+    private int coreSize;
+    private int maxSize;
+    private int queueCapacity;
+    private Duration timeout;
+  }
+}
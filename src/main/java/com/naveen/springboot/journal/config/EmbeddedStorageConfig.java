@@ -0,0 +1,34 @@
+package com.naveen.springboot.journal.config;
+
+import com.naveen.springboot.journal.storage.EmbeddedStore;
+import com.naveen.springboot.journal.storage.EmbeddedTransactionManager;
+import java.io.IOException;
+import java.nio.file.Path;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Storage without MongoDB for single-node deployments: entries and users live in an
+ * append-only log under {@code journal.storage.embedded.directory}. Features built on Mongo
+ * (attachments, enrichment, snapshots, slow query capture) are not available.
+ */
+@Configuration
+@Profile("embedded")
+@EnableConfigurationProperties(EmbeddedStorageProperties.class)
+public class EmbeddedStorageConfig {
+
+  @Bean
+  public EmbeddedStore embeddedStore(EmbeddedStorageProperties properties) throws IOException {
+    return new EmbeddedStore(Path.of(properties.getDirectory()),
+        properties.getSegmentSize().toBytes(), properties.isSyncWrites(),
+        properties.getCompactionInterval(), properties.getCompactionThreshold());
+  }
+
+  @Bean
+  public PlatformTransactionManager transactionManager(EmbeddedStore embeddedStore) {
+    return new EmbeddedTransactionManager(embeddedStore);
+  }
+}
@@ -0,0 +1,17 @@
+package com.naveen.springboot.journal.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@ConfigurationProperties(prefix = "journal.storage.embedded")
+@Data
+public class EmbeddedStorageProperties {
+
+  private String directory = "data";
+  private DataSize segmentSize = DataSize.ofMegabytes(64);
+  private boolean syncWrites = true;
+  private Duration compactionInterval = Duration.ofMinutes(1);
+  private double compactionThreshold = 0.5;
+}
@@ -0,0 +1,33 @@
+package com.naveen.springboot.journal.config;
+
+import com.naveen.springboot.journal.service.ChangeSequence;
+import com.naveen.springboot.journal.service.EnrichmentPipeline;
+import com.naveen.springboot.journal.service.EnrichmentQueue;
+import com.naveen.springboot.journal.service.EntryEnricher;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs the enrichment workers, sized through {@code journal.enrichment.*}. With the pipeline
+ * disabled, saves keep queueing entries and a later start works through the backlog.
+ */
+@Configuration
+@Profile("!embedded")
+@EnableConfigurationProperties(EnrichmentProperties.class)
+@ConditionalOnProperty(name = "journal.enrichment.enabled", matchIfMissing = true)
+public class EnrichmentConfig {
+
+  @Bean
+  public EnrichmentPipeline enrichmentPipeline(EnrichmentProperties properties,
+      EnrichmentQueue queue, EntryEnricher enricher, MongoTemplate mongoTemplate,
+      ChangeSequence changeSequence, TransactionTemplate transactionTemplate) {
+    return new EnrichmentPipeline(queue, enricher, mongoTemplate, changeSequence,
+        transactionTemplate, properties.getWorkers(), properties.getBatchSize(),
+        properties.getPollInterval(), properties.getLease(), properties.getMaxAttempts());
+  }
+}
@@ -0,0 +1,17 @@
+package com.naveen.springboot.journal.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "journal.enrichment")
+@Data
+public class EnrichmentProperties {
+
+  private boolean enabled = true;
+  private int workers = 2;
+  private int batchSize = 100;
+  private Duration pollInterval = Duration.ofSeconds(1);
+  private Duration lease = Duration.ofMinutes(1);
+  private int maxAttempts = 5;
+}
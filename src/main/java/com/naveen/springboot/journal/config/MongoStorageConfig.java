@@ -0,0 +1,32 @@
+package com.naveen.springboot.journal.config;
+
+import com.mongodb.TransactionOptions;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * The default storage: Spring Data repositories and transactions on MongoDB. The server gives up
+ * on a commit after {@code journal.sync.max-commit-time}, which bounds, together with the commit
+ * deadline enforced when change sequence numbers are drawn, how late a change can become visible.
+ */
+@Configuration
+@Profile("!embedded")
+@EnableMongoRepositories(basePackages = "com.naveen.springboot.journal.repository")
+public class MongoStorageConfig {
+
+  @Bean
+  public PlatformTransactionManager transactionManager(MongoDatabaseFactory dbFactory,
+      @Value("${journal.sync.max-commit-time:2s}") Duration maxCommitTime) {
+    return new MongoTransactionManager(dbFactory, TransactionOptions.builder()
+        .maxCommitTime(maxCommitTime.toMillis(), TimeUnit.MILLISECONDS)
+        .build());
+  }
+}
@@ -0,0 +1,30 @@
+package com.naveen.springboot.journal.config;
+
+import com.mongodb.client.MongoClient;
+import com.naveen.springboot.journal.service.SlowQueryMonitor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+@Configuration
+@Profile("!embedded")
+@EnableConfigurationProperties(SlowQueryProperties.class)
+@ConditionalOnProperty(name = "journal.slow-query.enabled", matchIfMissing = true)
+public class SlowQueryConfig {
+
+  @Bean
+  public SlowQueryMonitor slowQueryMonitor(SlowQueryProperties properties,
+      ObjectProvider<MongoClient> mongoClient) {
+    return new SlowQueryMonitor(mongoClient, properties.getThreshold(),
+        properties.getSampleRate(), properties.getMaxShapes());
+  }
+
+  @Bean
+  public MongoClientSettingsBuilderCustomizer slowQueryListener(SlowQueryMonitor monitor) {
+    return settings -> settings.addCommandListener(monitor);
+  }
+}
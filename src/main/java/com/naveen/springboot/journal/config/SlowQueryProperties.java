@@ -0,0 +1,15 @@
+package com.naveen.springboot.journal.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "journal.slow-query")
+@Data
+public class SlowQueryProperties {
+
+  private boolean enabled = true;
+  private Duration threshold = Duration.ofMillis(100);
+  private double sampleRate = 1.0;
+  private int maxShapes = 200;
+}
@@ -0,0 +1,150 @@
+package com.naveen.springboot.journal.controller;
+
+import com.naveen.springboot.journal.service.Bulkhead;
+import com.naveen.springboot.journal.service.SlowQueryMonitor;
+import com.naveen.springboot.journal.service.SlowQueryMonitor.SlowQueryShape;
+import com.naveen.springboot.journal.service.SnapshotService;
+import com.naveen.springboot.journal.service.SnapshotService.SnapshotResult;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin")
+@Tag(name = "Administration", description = "API endpoints for operational tasks")
+public class AdminController {
+
+  @Autowired(required = false)
+  private SnapshotService snapshotService;
+
+  @Autowired(required = false)
+  private SlowQueryMonitor slowQueryMonitor;
+
+  @Autowired
+  @Qualifier("adminBulkhead")
+  private Bulkhead adminBulkhead;
+
+  @PostMapping("/snapshots/{userName}")
+  @Operation(summary = "Snapshot a user",
+      description = "Write the user and all of their journal entries to a snapshot file")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "201",
+          description = "Snapshot written",
+          content = @Content(mediaType = "application/json",
+              schema = @Schema(implementation = SnapshotResult.class))),
+      @ApiResponse(responseCode = "404",
+          description = "User not found, or snapshots are unavailable with embedded storage",
+          content = @Content)
+  })
+  public CompletableFuture<ResponseEntity<?>> snapshotUser(
+      @Parameter(description = "Username to snapshot", required = true)
+      @PathVariable String userName) {
+    if (snapshotService == null) {
+      return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+    }
+    return adminBulkhead.submit(() -> {
+      try {
+        return new ResponseEntity<>(snapshotService.snapshot(userName), HttpStatus.CREATED);
+      } catch (IllegalArgumentException e) {
+        return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+      } catch (IOException e) {
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+      }
+    });
+  }
+
+  @PostMapping("/snapshots/restore/{fileName}")
+  @Operation(summary = "Restore a user snapshot",
+      description = "Restore the user and journal entries stored in a snapshot file")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200",
+          description = "Snapshot restored",
+          content = @Content(mediaType = "application/json",
+              schema = @Schema(implementation = SnapshotResult.class))),
+      @ApiResponse(responseCode = "400",
+          description = "Invalid file name or corrupt snapshot",
+          content = @Content),
+      @ApiResponse(responseCode = "404",
+          description = "Snapshot file not found, or snapshots are unavailable with embedded"
+              + " storage",
+          content = @Content)
+  })
+  public CompletableFuture<ResponseEntity<?>> restoreSnapshot(
+      @Parameter(description = "Snapshot file name in the snapshot directory", required = true)
+      @PathVariable String fileName) {
+    if (snapshotService == null) {
+      return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+    }
+    return adminBulkhead.submit(() -> {
+      try {
+        return new ResponseEntity<>(snapshotService.restore(snapshotService.resolve(fileName)),
+            HttpStatus.OK);
+      } catch (NoSuchFileException e) {
+        return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+      } catch (IllegalArgumentException | IOException e) {
+        return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+      }
+    });
+  }
+
+  @GetMapping("/slow-queries")
+  @Operation(summary = "List slow query shapes",
+      description = "Mongo query shapes above the slow query threshold, by total time, with their"
+          + " winning plan stages and a suggested index where the plan scans or sorts in memory")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200",
+          description = "Successfully retrieved slow query shapes",
+          content = @Content(mediaType = "application/json",
+              array = @ArraySchema(schema = @Schema(implementation = SlowQueryShape.class)))),
+      @ApiResponse(responseCode = "404",
+          description = "Slow query capture is disabled",
+          content = @Content)
+  })
+  public ResponseEntity<List<SlowQueryShape>> getSlowQueries(
+      @Parameter(description = "Maximum number of shapes to return")
+      @RequestParam(defaultValue = "20") int limit) {
+    if (slowQueryMonitor == null) {
+      return ResponseEntity.notFound().build();
+    }
+    return ResponseEntity.ok(slowQueryMonitor.topShapes(limit));
+  }
+
+  @DeleteMapping("/slow-queries")
+  @Operation(summary = "Reset slow query shapes",
+      description = "Clear the collected shapes, e.g. after adding the suggested indexes")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "204",
+          description = "Shapes cleared",
+          content = @Content),
+      @ApiResponse(responseCode = "404",
+          description = "Slow query capture is disabled",
+          content = @Content)
+  })
+  public ResponseEntity<?> resetSlowQueries() {
+    if (slowQueryMonitor == null) {
+      return ResponseEntity.notFound().build();
+    }
+    slowQueryMonitor.reset();
+    return ResponseEntity.noContent().build();
+  }
+}
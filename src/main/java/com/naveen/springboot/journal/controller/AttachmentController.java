@@ -0,0 +1,257 @@
+package com.naveen.springboot.journal.controller;
+
+import com.naveen.springboot.journal.entity.Attachment;
+import com.naveen.springboot.journal.service.AttachmentService;
+import com.naveen.springboot.journal.service.AttachmentService.AttachmentTooLargeException;
+import com.naveen.springboot.journal.service.AttachmentService.ByteRange;
+import com.naveen.springboot.journal.service.Bulkhead;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+@Slf4j
+@RestController
+@Profile("!embedded")
+@RequestMapping("/api/journal/id/{userName}/{id}/attachments")
+@Tag(name = "Journal Attachments", description = "API endpoints for journal entry attachments")
+public class AttachmentController {
+
+  // Types a browser may render in place; anything else, including scriptable images such as
+  // SVG, is served as a download so stored files cannot run in the API's origin
+  private static final Set<String> INLINE_TYPES = Set.of("image", "audio", "video");
+
+  @Autowired
+  private AttachmentService attachmentService;
+
+  @Autowired
+  @Qualifier("readBulkhead")
+  private Bulkhead readBulkhead;
+
+  @Autowired
+  @Qualifier("writeBulkhead")
+  private Bulkhead writeBulkhead;
+
+  @Autowired
+  @Qualifier("attachmentBulkhead")
+  private Bulkhead attachmentBulkhead;
+
+  @PostMapping(consumes = MediaType.ALL_VALUE)
+  @Operation(summary = "Upload an attachment",
+      description = "Stream the raw request body into storage and attach it to the journal entry")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "201",
+          description = "Attachment stored",
+          content = @Content(mediaType = "application/json",
+              schema = @Schema(implementation = Attachment.class))),
+      @ApiResponse(responseCode = "400",
+          description = "Malformed or wildcard Content-Type",
+          content = @Content),
+      @ApiResponse(responseCode = "404",
+          description = "User or journal entry not found",
+          content = @Content),
+      @ApiResponse(responseCode = "413",
+          description = "Attachment exceeds the maximum size",
+          content = @Content)
+  })
+  public DeferredResult<ResponseEntity<?>> uploadAttachment(
+      @Parameter(description = "Username owning the journal entry", required = true)
+      @PathVariable String userName,
+      @Parameter(description = "Unique identifier of the journal entry", required = true)
+      @PathVariable ObjectId id,
+      @Parameter(description = "Original file name", required = true)
+      @RequestParam String fileName,
+      @RequestHeader(value = HttpHeaders.CONTENT_TYPE,
+          defaultValue = MediaType.APPLICATION_OCTET_STREAM_VALUE) String contentType,
+      HttpServletRequest request) {
+    // Uploads may outlast spring.mvc.async.request-timeout, the bulkhead bounds them instead
+    DeferredResult<ResponseEntity<?>> result =
+        new DeferredResult<>(attachmentBulkhead.getTimeout().plusSeconds(5).toMillis());
+    MediaType mediaType = parseContentType(contentType);
+    if (mediaType == null || mediaType.isWildcardType() || mediaType.isWildcardSubtype()) {
+      result.setResult(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+      return result;
+    }
+    attachmentBulkhead.<ResponseEntity<?>>submit(() -> {
+      try {
+        return attachmentService
+            .upload(userName, id, fileName, mediaType.toString(), request.getInputStream())
+            .<ResponseEntity<?>>map(attachment -> new ResponseEntity<>(attachment,
+                HttpStatus.CREATED))
+            .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+      } catch (AttachmentTooLargeException e) {
+        return new ResponseEntity<>(HttpStatus.PAYLOAD_TOO_LARGE);
+      } catch (IOException e) {
+        log.warn("Upload of {} to journal entry {} failed", fileName, id, e);
+        return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+      }
+    }).whenComplete((response, error) -> {
+      if (error != null) {
+        result.setErrorResult(error instanceof CompletionException ? error.getCause() : error);
+      } else {
+        result.setResult(response);
+      }
+    });
+    return result;
+  }
+
+  @GetMapping("{fileId}")
+  @Operation(summary = "Download an attachment",
+      description = "Stream an attachment, or only the part of it named by a Range header")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Whole attachment"),
+      @ApiResponse(responseCode = "206", description = "Requested byte range"),
+      @ApiResponse(responseCode = "404",
+          description = "Attachment not found",
+          content = @Content),
+      @ApiResponse(responseCode = "416",
+          description = "Range not satisfiable",
+          content = @Content)
+  })
+  public ResponseEntity<Resource> downloadAttachment(
+      @Parameter(description = "Username owning the journal entry", required = true)
+      @PathVariable String userName,
+      @Parameter(description = "Unique identifier of the journal entry", required = true)
+      @PathVariable ObjectId id,
+      @Parameter(description = "Unique identifier of the attachment", required = true)
+      @PathVariable ObjectId fileId,
+      @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader)
+      throws IOException {
+    // Streams on the request thread: the async request timeout would cut off long media
+    Optional<Attachment> found = attachmentService.findAttachment(userName, id, fileId);
+    if (found.isEmpty()) {
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+    Attachment attachment = found.get();
+
+    ByteRange range;
+    try {
+      range = ByteRange.of(rangeHeader, attachment.getLength());
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+          .header(HttpHeaders.CONTENT_RANGE, "bytes */" + attachment.getLength())
+          .build();
+    }
+
+    MediaType mediaType = parseContentType(attachment.getContentType());
+    if (mediaType == null) {
+      mediaType = MediaType.APPLICATION_OCTET_STREAM;
+    }
+    ContentDisposition.Builder disposition = isInline(mediaType) ? ContentDisposition.inline()
+        : ContentDisposition.attachment();
+    ResponseEntity.BodyBuilder response = ResponseEntity
+        .status(range == null ? HttpStatus.OK : HttpStatus.PARTIAL_CONTENT)
+        .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+        .header("X-Content-Type-Options", "nosniff")
+        .contentType(mediaType)
+        .contentLength(range == null ? attachment.getLength() : range.length())
+        .header(HttpHeaders.CONTENT_DISPOSITION, disposition
+            .filename(attachment.getFileName())
+            .build()
+            .toString());
+    if (range != null) {
+      response.header(HttpHeaders.CONTENT_RANGE,
+          "bytes " + range.start() + "-" + range.end() + "/" + range.total());
+    }
+    return response.body(new InputStreamResource(attachmentService.open(attachment, range)));
+  }
+
+  @GetMapping
+  @Operation(summary = "List attachments",
+      description = "List the attachments of a journal entry without their contents")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200",
+          description = "Successfully retrieved attachments",
+          content = @Content(mediaType = "application/json",
+              schema = @Schema(implementation = Attachment.class))),
+      @ApiResponse(responseCode = "404",
+          description = "User or journal entry not found",
+          content = @Content)
+  })
+  public CompletableFuture<ResponseEntity<List<Attachment>>> listAttachments(
+      @Parameter(description = "Username owning the journal entry", required = true)
+      @PathVariable String userName,
+      @Parameter(description = "Unique identifier of the journal entry", required = true)
+      @PathVariable ObjectId id) {
+    return readBulkhead.submit(() -> attachmentService.listAttachments(userName, id)
+        .map(attachments -> new ResponseEntity<>(attachments, HttpStatus.OK))
+        .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND)));
+  }
+
+  @DeleteMapping("{fileId}")
+  @Operation(summary = "Delete an attachment",
+      description = "Remove an attachment from a journal entry and delete its contents")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "204",
+          description = "Attachment deleted",
+          content = @Content),
+      @ApiResponse(responseCode = "404",
+          description = "Attachment not found",
+          content = @Content)
+  })
+  public CompletableFuture<ResponseEntity<?>> deleteAttachment(
+      @Parameter(description = "Username owning the journal entry", required = true)
+      @PathVariable String userName,
+      @Parameter(description = "Unique identifier of the journal entry", required = true)
+      @PathVariable ObjectId id,
+      @Parameter(description = "Unique identifier of the attachment", required = true)
+      @PathVariable ObjectId fileId) {
+    return writeBulkhead.submit(() -> {
+      if (attachmentService.delete(userName, id, fileId)) {
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+      }
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    });
+  }
+
+  /**
+   * The parsed type, or {@code null} if it is malformed.
+   */
+  static MediaType parseContentType(String contentType) {
+    try {
+      return MediaType.parseMediaType(contentType);
+    } catch (InvalidMediaTypeException e) {
+      return null;
+    }
+  }
+
+  static boolean isInline(MediaType mediaType) {
+    if (MediaType.APPLICATION_PDF.equalsTypeAndSubtype(mediaType)) {
+      return true;
+    }
+    return INLINE_TYPES.contains(mediaType.getType())
+        && !mediaType.getSubtype().contains("svg");
+  }
+}
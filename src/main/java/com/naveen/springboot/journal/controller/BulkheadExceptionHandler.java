@@ -0,0 +1,19 @@
+package com.naveen.springboot.journal.controller;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+public class BulkheadExceptionHandler {
+
+  @ExceptionHandler({RejectedExecutionException.class, TimeoutException.class})
+  public ResponseEntity<?> handleSaturation(Exception e) {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header("Retry-After", "1")
+        .build();
+  }
+}
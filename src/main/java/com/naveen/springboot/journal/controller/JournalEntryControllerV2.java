@@ -2,7 +2,10 @@ package com.naveen.springboot.journal.controller;
 
 import com.naveen.springboot.journal.entity.JournalEntity;
 import com.naveen.springboot.journal.entity.User;
+import com.naveen.springboot.journal.service.Bulkhead;
 import com.naveen.springboot.journal.service.JournalEntryService;
+import com.naveen.springboot.journal.service.JournalEntryService.ChangePage;
+import com.naveen.springboot.journal.service.TagCounter.TagCount;
 import com.naveen.springboot.journal.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -14,8 +17,11 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -25,6 +31,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -38,27 +45,109 @@ public class JournalEntryControllerV2 {
   @Autowired
   private UserService userService;
 
+  @Autowired
+  @Qualifier("readBulkhead")
+  private Bulkhead readBulkhead;
+
+  @Autowired
+  @Qualifier("writeBulkhead")
+  private Bulkhead writeBulkhead;
+
   @GetMapping("{userName}")
   @Operation(summary = "Get all journal entries for a user",
-      description = "Retrieve all journal entries associated with a specific username")
+      description = "Retrieve all journal entries associated with a specific username, optionally"
+          + " only those carrying the given tags")
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200",
           description = "Successfully retrieved journal entries",
           content = @Content(mediaType = "application/json",
               schema = @Schema(implementation = JournalEntity.class))),
       @ApiResponse(responseCode = "404",
-          description = "No journal entries found for the user",
+          description = "User not found",
           content = @Content)
   })
-  public ResponseEntity<?> getAllJournalEntriesOfUser(
+  public CompletableFuture<ResponseEntity<?>> getAllJournalEntriesOfUser(
       @Parameter(description = "Username to retrieve journal entries for", required = true)
-      @PathVariable String userName) {
-    User user = userService.findByUserName(userName);
-    List<JournalEntity> journalEntries = journalEntryService.getAllJournalEntries();
-    if (journalEntries != null && !journalEntries.isEmpty()) {
-      return new ResponseEntity<>(journalEntries, HttpStatus.OK);
-    }
-    return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+      @PathVariable String userName,
+      @Parameter(description = "Only return entries tagged with these tags")
+      @RequestParam(required = false) List<String> tags,
+      @Parameter(description = "Whether entries must carry all of the tags or any of them")
+      @RequestParam(defaultValue = "all") String match) {
+    return readBulkhead.submit(() -> {
+      User user = userService.findByUserName(userName);
+      if (user == null) {
+        return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+      }
+      if (tags != null && !tags.isEmpty()) {
+        return new ResponseEntity<>(journalEntryService.getJournalEntriesByTags(user, tags,
+            !"any".equalsIgnoreCase(match)), HttpStatus.OK);
+      }
+      return new ResponseEntity<>(journalEntryService.getJournalEntriesOfUser(user),
+          HttpStatus.OK);
+    });
+  }
+
+  @GetMapping("{userName}/changes")
+  @Operation(summary = "Get journal changes since a sync token",
+      description = "Retrieve a page of entries created, updated or deleted after the given token."
+          + " Deleted entries are returned as tombstones. Changes that have not settled yet are"
+          + " held back, with a Retry-After header saying when to ask again.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200",
+          description = "Successfully retrieved changes",
+          content = @Content(mediaType = "application/json",
+              schema = @Schema(implementation = ChangePage.class))),
+      @ApiResponse(responseCode = "404",
+          description = "User not found",
+          content = @Content)
+  })
+  public CompletableFuture<ResponseEntity<ChangePage>> getChangesSince(
+      @Parameter(description = "Username to sync journal entries for", required = true)
+      @PathVariable String userName,
+      @Parameter(description = "nextToken from the previous sync, 0 for a full sync")
+      @RequestParam(defaultValue = "0") long since,
+      @Parameter(description = "Maximum number of changes to return (1-500)")
+      @RequestParam(defaultValue = "100") int limit) {
+    return readBulkhead.submit(() -> {
+      ChangePage changes = journalEntryService.getChangesSince(userName, since,
+          Math.max(1, Math.min(limit, 500)));
+      if (changes == null) {
+        return new ResponseEntity<ChangePage>(HttpStatus.NOT_FOUND);
+      }
+      HttpHeaders headers = new HttpHeaders();
+      if (changes.retryAfterSeconds() > 0) {
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString(changes.retryAfterSeconds()));
+      }
+      return new ResponseEntity<>(changes, headers, HttpStatus.OK);
+    });
+  }
+
+  @GetMapping("{userName}/tags")
+  @Operation(summary = "Get tag counts for a user",
+      description = "Retrieve the user's tags with the number of entries carrying each, most used"
+          + " first")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200",
+          description = "Successfully retrieved tag counts",
+          content = @Content(mediaType = "application/json",
+              schema = @Schema(implementation = TagCount.class))),
+      @ApiResponse(responseCode = "404",
+          description = "User not found",
+          content = @Content)
+  })
+  public CompletableFuture<ResponseEntity<List<TagCount>>> getTagCounts(
+      @Parameter(description = "Username to count tags for", required = true)
+      @PathVariable String userName,
+      @Parameter(description = "Maximum number of tags to return (1-500)")
+      @RequestParam(defaultValue = "50") int limit) {
+    return readBulkhead.submit(() -> {
+      List<TagCount> counts = journalEntryService.getTagCounts(userName,
+          Math.max(1, Math.min(limit, 500)));
+      if (counts == null) {
+        return new ResponseEntity<List<TagCount>>(HttpStatus.NOT_FOUND);
+      }
+      return new ResponseEntity<>(counts, HttpStatus.OK);
+    });
   }
 
   @PostMapping("{userName}")
@@ -72,18 +161,26 @@ public class JournalEntryControllerV2 {
           description = "Bad request - Invalid journal entry data",
           content = @Content)
   })
-  public ResponseEntity<?> createJournalEntry(
+  public CompletableFuture<ResponseEntity<?>> createJournalEntry(
       @Parameter(description = "Journal entry data to be created", required = true)
-      @RequestBody JournalEntity journalEntity,
+      @RequestBody JournalEntity createEntity,
       @Parameter(description = "Username to associate the journal entry with", required = true)
       @PathVariable String userName) {
-    try {
-      journalEntity.setDate(LocalDateTime.now());
-      journalEntryService.saveEntry(journalEntity, userName);
-      return new ResponseEntity<>(HttpStatus.CREATED);
-    } catch (Exception e) {
-      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
-    }
+    return writeBulkhead.submit(() -> {
+      try {
+        // Only what the client writes is taken; the id, ownership, sync state and enrichment
+        // are the server's, and attachments are added through AttachmentService only
+        JournalEntity journalEntity = new JournalEntity();
+        journalEntity.setTitle(createEntity.getTitle());
+        journalEntity.setContent(createEntity.getContent());
+        journalEntity.setTags(createEntity.getTags());
+        journalEntity.setDate(LocalDateTime.now());
+        journalEntryService.saveEntry(journalEntity, userName);
+        return new ResponseEntity<>(HttpStatus.CREATED);
+      } catch (Exception e) {
+        return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+      }
+    });
   }
 
   @GetMapping("/id/{id}")
@@ -98,12 +195,15 @@ public class JournalEntryControllerV2 {
           description = "Journal entry not found",
           content = @Content)
   })
-  public ResponseEntity<JournalEntity> getJournalEntryById(
+  public CompletableFuture<ResponseEntity<JournalEntity>> getJournalEntryById(
       @Parameter(description = "Unique identifier of the journal entry", required = true)
       @PathVariable ObjectId id) {
-    Optional<JournalEntity> journalEntryById = journalEntryService.getJournalEntryById(id);
-    return journalEntryById.map(journalEntity -> new ResponseEntity<>(journalEntity, HttpStatus.OK))
-        .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    return readBulkhead.submit(() -> {
+      Optional<JournalEntity> journalEntryById = journalEntryService.getJournalEntryById(id);
+      return journalEntryById.map(
+              journalEntity -> new ResponseEntity<>(journalEntity, HttpStatus.OK))
+          .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    });
   }
 
   @PutMapping(value = "/id/{userName}/{id}")
@@ -118,26 +218,32 @@ public class JournalEntryControllerV2 {
           description = "Journal entry not found",
           content = @Content)
   })
-  public ResponseEntity<?> updateJournalEntry(
+  public CompletableFuture<ResponseEntity<?>> updateJournalEntry(
       @Parameter(description = "Unique identifier of the journal entry to update", required = true)
       @PathVariable ObjectId id,
       @Parameter(description = "Updated journal entry data", required = true)
       @RequestBody JournalEntity updateEntity,
       @Parameter(description = "Username associated with the journal entry", required = true)
       @PathVariable String userName) {
-    JournalEntity journalEntity = journalEntryService.getJournalEntryById(updateEntity.getId())
-        .orElse(null);
-    if (journalEntity != null) {
-      journalEntity.setTitle(updateEntity.getTitle() != null && !updateEntity.getTitle().isEmpty()
-          ? updateEntity.getTitle() : journalEntity.getTitle());
-      journalEntity.setContent(
-          updateEntity.getContent() != null && !updateEntity.getContent().isEmpty()
-              ? updateEntity.getContent() : journalEntity.getContent());
-      journalEntryService.saveEntry(journalEntity, userName);
-      return new ResponseEntity<>(journalEntity, HttpStatus.OK);
-    }
+    return writeBulkhead.submit(() -> {
+      JournalEntity journalEntity = journalEntryService
+          .getJournalEntryByIdForUpdate(updateEntity.getId())
+          .orElse(null);
+      if (journalEntity != null) {
+        journalEntity.setTitle(updateEntity.getTitle() != null && !updateEntity.getTitle().isEmpty()
+            ? updateEntity.getTitle() : journalEntity.getTitle());
+        journalEntity.setContent(
+            updateEntity.getContent() != null && !updateEntity.getContent().isEmpty()
+                ? updateEntity.getContent() : journalEntity.getContent());
+        if (updateEntity.getTags() != null) {
+          journalEntity.setTags(updateEntity.getTags());
+        }
+        journalEntryService.saveEntry(journalEntity, userName);
+        return new ResponseEntity<>(journalEntity, HttpStatus.OK);
+      }
 
-    return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    });
   }
 
   @DeleteMapping("/id/{userName}/{id}")
@@ -151,13 +257,15 @@ public class JournalEntryControllerV2 {
           description = "Journal entry not found",
           content = @Content)
   })
-  public ResponseEntity<?> deleteJournalEntry(
+  public CompletableFuture<ResponseEntity<?>> deleteJournalEntry(
       @Parameter(description = "Unique identifier of the journal entry to delete", required = true)
       @PathVariable ObjectId id,
       @Parameter(description = "Username associated with the journal entry", required = true)
       @PathVariable String userName) {
-    journalEntryService.deleteEntityById(id, userName);
-    return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    return writeBulkhead.submit(() -> {
+      journalEntryService.deleteEntityById(id, userName);
+      return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    });
   }
 
 }
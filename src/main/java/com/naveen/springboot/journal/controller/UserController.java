@@ -1,6 +1,7 @@
 package com.naveen.springboot.journal.controller;
 
 import com.naveen.springboot.journal.entity.User;
+import com.naveen.springboot.journal.service.Bulkhead;
 import com.naveen.springboot.journal.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,8 +12,10 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -32,6 +35,14 @@ public class UserController {
   @Autowired
   private UserService userService;
 
+  @Autowired
+  @Qualifier("writeBulkhead")
+  private Bulkhead writeBulkhead;
+
+  @Autowired
+  @Qualifier("adminBulkhead")
+  private Bulkhead adminBulkhead;
+
   @GetMapping("/users")
   @Operation(summary = "Get all users",
       description = "Retrieve a list of all registered users in the system")
@@ -44,8 +55,8 @@ public class UserController {
           description = "Internal server error",
           content = @Content)
   })
-  public List<User> getAll() {
-    return userService.getAll();
+  public CompletableFuture<List<User>> getAll() {
+    return adminBulkhead.submit(() -> userService.getAll());
   }
 
   @PostMapping("/users")
@@ -59,15 +70,17 @@ public class UserController {
           description = "Bad request - Invalid user data or user already exists",
           content = @Content)
   })
-  public ResponseEntity<?> saveUser(
+  public CompletableFuture<ResponseEntity<?>> saveUser(
       @Parameter(description = "User data to be created", required = true)
       @RequestBody User user) {
-    try {
-      userService.saveUser(user);
-      return new ResponseEntity<>(HttpStatus.CREATED);
-    } catch (Exception e) {
-      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
-    }
+    return writeBulkhead.submit(() -> {
+      try {
+        userService.saveUser(user);
+        return new ResponseEntity<>(HttpStatus.CREATED);
+      } catch (Exception e) {
+        return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+      }
+    });
   }
 
   @PutMapping("/{userName}")
@@ -84,19 +97,21 @@ public class UserController {
           description = "Bad request - Invalid user data",
           content = @Content)
   })
-  public ResponseEntity<?> updateUser(
+  public CompletableFuture<ResponseEntity<?>> updateUser(
       @Parameter(description = "Updated user data", required = true)
       @RequestBody User user,
       @Parameter(description = "Username of the user to update", required = true)
       @PathVariable String userName) {
-    User userInDb = userService.findByUserName(userName);
-    if (userInDb != null) {
-      userInDb.setUserName(user.getUserName());
-      userInDb.setPassword(user.getPassword());
-      userService.saveUser(userInDb);
-      return ResponseEntity.ok().build();
-    }
-    return ResponseEntity.notFound().build();
+    return writeBulkhead.submit(() -> {
+      User userInDb = userService.findByUserNameForUpdate(userName);
+      if (userInDb != null) {
+        userInDb.setUserName(user.getUserName());
+        userInDb.setPassword(user.getPassword());
+        userService.saveUser(userInDb);
+        return ResponseEntity.ok().build();
+      }
+      return ResponseEntity.notFound().build();
+    });
   }
 
   @DeleteMapping("/{userId}")
@@ -113,14 +128,16 @@ public class UserController {
           description = "Bad request - Invalid user ID",
           content = @Content)
   })
-  public ResponseEntity<?> deleteUser(
+  public CompletableFuture<ResponseEntity<?>> deleteUser(
       @Parameter(description = "ID of the user to delete", required = true)
       @PathVariable ObjectId userId) {
-    try {
-      userService.deleteUserById(userId);
-      return ResponseEntity.ok().build();
-    } catch (Exception e) {
-      return ResponseEntity.badRequest().build();
-    }
+    return adminBulkhead.submit(() -> {
+      try {
+        userService.deleteUserById(userId);
+        return ResponseEntity.ok().build();
+      } catch (Exception e) {
+        return ResponseEntity.badRequest().build();
+      }
+    });
   }
 }
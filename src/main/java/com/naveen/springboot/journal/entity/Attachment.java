@@ -0,0 +1,22 @@
+package com.naveen.springboot.journal.entity;
+
+import java.time.LocalDateTime;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+
+/**
+ * Reference from a journal entry to a file in the {@code attachments} GridFS bucket. The bytes
+ * never live on the entry itself.
+ */
+@Data
+@NoArgsConstructor
+public class Attachment {
+
+  private ObjectId fileId;
+  private String fileName;
+  private String contentType;
+  private long length;
+  private LocalDateTime uploadedAt;
+
+}
@@ -0,0 +1,21 @@
+package com.naveen.springboot.journal.entity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Fields derived from an entry's title and content by the background enrichment pipeline.
+ */
+@Data
+@NoArgsConstructor
+public class Enrichment {
+
+  private int wordCount;
+  private int readingTimeSeconds;
+  private String language;
+  private List<String> tags;
+  private LocalDateTime enrichedAt;
+
+}
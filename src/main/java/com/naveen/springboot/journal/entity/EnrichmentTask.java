@@ -0,0 +1,32 @@
+package com.naveen.springboot.journal.entity;
+
+import java.time.LocalDateTime;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * A journal entry waiting for enrichment. The id is the entry's id, so repeated saves of one
+ * entry collapse into a single pending task.
+ */
+@Document(collection = "enrichment_queue")
+@Data
+@NoArgsConstructor
+public class EnrichmentTask {
+
+  @Id
+  private ObjectId id;
+  // The entry's changeSeq when it was last queued; completion only removes that version
+  private long changeSeq;
+  @Indexed
+  private LocalDateTime enqueuedAt;
+  // Claimable once this has passed, so tasks held by a crashed worker are retried
+  @Indexed
+  private LocalDateTime leaseUntil;
+  private String owner;
+  private int attempts;
+
+}
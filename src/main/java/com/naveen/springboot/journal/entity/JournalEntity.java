@@ -1,13 +1,21 @@
 package com.naveen.springboot.journal.entity;
 
-import jakarta.persistence.Id;
 import java.time.LocalDateTime;
+import java.util.List;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "journal_entries")
+@CompoundIndexes({
+    @CompoundIndex(name = "user_changes", def = "{'userId': 1, 'changeSeq': 1}"),
+    // Multikey: one key per tag, so tag filters stay on the owner's entries and sort by date
+    @CompoundIndex(name = "user_tags_date", def = "{'userId': 1, 'tags': 1, 'date': -1}")
+})
 @Data
 @NoArgsConstructor
 public class JournalEntity {
@@ -17,5 +25,18 @@ public class JournalEntity {
   private String title;
   private String content;
   private LocalDateTime date;
+  private List<String> tags;
+
+  // Change tracking for delta sync, see JournalEntryService#getChangesSince
+  private ObjectId userId;
+  private long changeSeq;
+  private LocalDateTime updatedAt;
+  private boolean deleted;
+
+  // Derived fields written by EnrichmentPipeline, null until the entry has been processed
+  private Enrichment enrichment;
+
+  // References into the attachments GridFS bucket, see AttachmentService
+  private List<Attachment> attachments;
 
 }
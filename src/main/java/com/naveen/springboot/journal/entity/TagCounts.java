@@ -0,0 +1,24 @@
+package com.naveen.springboot.journal.entity;
+
+import java.util.Map;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Per-user number of live entries carrying each tag, kept up to date on every save and delete
+ * so tag clouds never aggregate over the user's entries.
+ */
+@Document(collection = "tag_counts")
+@Data
+@NoArgsConstructor
+public class TagCounts {
+
+  // The owning user's id
+  @Id
+  private ObjectId id;
+  private Map<String, Long> counts;
+
+}
@@ -0,0 +1,258 @@
+package com.naveen.springboot.journal.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.naveen.springboot.journal.config.BinaryFormatsConfig;
+import com.naveen.springboot.journal.entity.JournalEntity;
+import com.naveen.springboot.journal.storage.EmbeddedStore;
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Journal entries in the {@link EmbeddedStore}, encoded as Smile. The per-user indexes that the
+ * Mongo collection keeps on disk ({@code user_changes}, {@code user_tags_date}) are held in
+ * memory here: built from the store on startup and kept current by a commit listener.
+ *
+ * <p>Building them reads and decodes every stored entry, so startup grows with the data even
+ * though the store itself only replays the log after its last checkpoint. That is accepted for
+ * the embedded profile's single-node journals; persisting these indexes with the store's
+ * checkpoint would bound startup by the replayed tail, at the cost of a second on-disk format
+ * that has to be kept consistent with the log. The time taken is logged on startup.
+ */
+@Slf4j
+@Repository
+@Profile("embedded")
+public class EmbeddedJournalEntryRepository implements JournalEntryRepository {
+
+  private static final Comparator<EntryKey> NEWEST_FIRST = Comparator.comparing(EntryKey::date,
+      Comparator.nullsLast(Comparator.reverseOrder()));
+
+  @Autowired
+  private EmbeddedStore store;
+
+  private final ObjectMapper mapper =
+      BinaryFormatsConfig.smileMapper(Jackson2ObjectMapperBuilder.json());
+
+  private final Map<ObjectId, EntryKey> keys = new ConcurrentHashMap<>();
+  private final Map<ObjectId, NavigableMap<Long, ObjectId>> changesByUser =
+      new ConcurrentHashMap<>();
+  private final Map<ObjectId, Map<String, Set<ObjectId>>> tagsByUser = new ConcurrentHashMap<>();
+
+  @PostConstruct
+  public void loadIndexes() {
+    store.addListener(EmbeddedStore.ENTRIES, (id, payload) -> index(id,
+        payload == null ? null : decode(payload)));
+    long start = System.nanoTime();
+    store.forEach(EmbeddedStore.ENTRIES, (id, payload) -> index(id, decode(payload)));
+    log.info("Indexed {} journal entries in {} ms", keys.size(),
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+  }
+
+  @Override
+  public <S extends JournalEntity> S save(S journalEntity) {
+    if (journalEntity.getId() == null) {
+      journalEntity.setId(new ObjectId());
+    }
+    store.put(EmbeddedStore.ENTRIES, journalEntity.getId(), encode(journalEntity));
+    return journalEntity;
+  }
+
+  @Override
+  public Optional<JournalEntity> findById(ObjectId id) {
+    if (id == null) {
+      return Optional.empty();
+    }
+    byte[] payload = store.get(EmbeddedStore.ENTRIES, id);
+    return payload == null ? Optional.empty() : Optional.of(decode(payload));
+  }
+
+  @Override
+  public void delete(JournalEntity journalEntity) {
+    store.delete(EmbeddedStore.ENTRIES, journalEntity.getId());
+  }
+
+  @Override
+  public void deleteById(ObjectId id) {
+    store.delete(EmbeddedStore.ENTRIES, id);
+  }
+
+  @Override
+  public void deleteAll() {
+    store.deleteAll(EmbeddedStore.ENTRIES);
+  }
+
+  @Override
+  public List<JournalEntity> findByDeletedNot(boolean deleted) {
+    return load(keys.values().stream()
+        .filter(key -> key.deleted() != deleted)
+        .map(EntryKey::id)
+        .toList());
+  }
+
+  @Override
+  public boolean existsByUserIdIsNullAndDeletedNot(boolean deleted) {
+    return keys.values().stream()
+        .anyMatch(key -> key.userId() == null && key.deleted() != deleted);
+  }
+
+  @Override
+  public List<JournalEntity> findByUserIdIsNullAndDeletedNot(boolean deleted) {
+    return load(keys.values().stream()
+        .filter(key -> key.userId() == null && key.deleted() != deleted)
+        .map(EntryKey::id)
+        .toList());
+  }
+
+  @Override
+  public List<JournalEntity> findByUserIdAndChangeSeqGreaterThanOrderByChangeSeqAsc(
+      ObjectId userId, long changeSeq, Limit limit) {
+    NavigableMap<Long, ObjectId> changes = changesByUser.get(userId);
+    if (changes == null) {
+      return List.of();
+    }
+    return load(changes.tailMap(changeSeq, false).values().stream()
+        .limit(limit.isLimited() ? limit.max() : Long.MAX_VALUE)
+        .toList());
+  }
+
+  @Override
+  public List<JournalEntity> findByUserIdAndAllTags(ObjectId userId, List<String> tags) {
+    Map<String, Set<ObjectId>> byTag = tagsByUser.getOrDefault(userId, Map.of());
+    Set<ObjectId> ids = null;
+    for (String tag : tags) {
+      Set<ObjectId> tagged = byTag.getOrDefault(tag, Set.of());
+      if (ids == null) {
+        ids = new HashSet<>(tagged);
+      } else {
+        ids.retainAll(tagged);
+      }
+    }
+    return newestFirst(ids == null ? Set.of() : ids);
+  }
+
+  @Override
+  public List<JournalEntity> findByUserIdAndAnyTags(ObjectId userId, List<String> tags) {
+    Map<String, Set<ObjectId>> byTag = tagsByUser.getOrDefault(userId, Map.of());
+    Set<ObjectId> ids = new HashSet<>();
+    for (String tag : tags) {
+      ids.addAll(byTag.getOrDefault(tag, Set.of()));
+    }
+    return newestFirst(ids);
+  }
+
+  /**
+   * Number of live entries per tag for the user, read from the in-memory tag index.
+   */
+  public Map<String, Long> countTags(ObjectId userId) {
+    return tagsByUser.getOrDefault(userId, Map.of()).entrySet().stream()
+        .filter(tag -> !tag.getValue().isEmpty())
+        .collect(Collectors.toMap(Map.Entry::getKey, tag -> (long) tag.getValue().size()));
+  }
+
+  /**
+   * The highest {@code changeSeq} of any stored entry, or {@code 0} if there are none.
+   */
+  public long maxChangeSeq() {
+    return keys.values().stream().mapToLong(EntryKey::changeSeq).max().orElse(0);
+  }
+
+  private List<JournalEntity> newestFirst(Collection<ObjectId> ids) {
+    return load(ids.stream()
+        .map(keys::get)
+        .filter(Objects::nonNull)
+        .filter(key -> !key.deleted())
+        .sorted(NEWEST_FIRST)
+        .map(EntryKey::id)
+        .toList());
+  }
+
+  private List<JournalEntity> load(List<ObjectId> ids) {
+    return ids.stream()
+        .map(this::findById)
+        .flatMap(Optional::stream)
+        .toList();
+  }
+
+  private void index(ObjectId id, JournalEntity journalEntity) {
+    EntryKey previous = journalEntity == null ? keys.remove(id)
+        : keys.put(id, EntryKey.of(journalEntity));
+    if (previous != null && previous.userId() != null) {
+      NavigableMap<Long, ObjectId> changes = changesByUser.get(previous.userId());
+      if (changes != null) {
+        changes.remove(previous.changeSeq(), id);
+      }
+      Map<String, Set<ObjectId>> byTag = tagsByUser.get(previous.userId());
+      if (byTag != null) {
+        for (String tag : previous.tags()) {
+          Set<ObjectId> tagged = byTag.get(tag);
+          if (tagged != null) {
+            tagged.remove(id);
+            if (tagged.isEmpty()) {
+              byTag.remove(tag);
+            }
+          }
+        }
+      }
+    }
+    if (journalEntity == null || journalEntity.getUserId() == null) {
+      return;
+    }
+    changesByUser.computeIfAbsent(journalEntity.getUserId(), user -> new ConcurrentSkipListMap<>())
+        .put(journalEntity.getChangeSeq(), id);
+    if (!journalEntity.isDeleted() && journalEntity.getTags() != null) {
+      Map<String, Set<ObjectId>> byTag = tagsByUser.computeIfAbsent(journalEntity.getUserId(),
+          user -> new ConcurrentHashMap<>());
+      for (String tag : journalEntity.getTags()) {
+        byTag.computeIfAbsent(tag, t -> ConcurrentHashMap.newKeySet()).add(id);
+      }
+    }
+  }
+
+  private byte[] encode(JournalEntity journalEntity) {
+    try {
+      return mapper.writeValueAsBytes(journalEntity);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private JournalEntity decode(byte[] payload) {
+    try {
+      return mapper.readValue(payload, JournalEntity.class);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private record EntryKey(ObjectId id, ObjectId userId, long changeSeq, LocalDateTime date,
+      boolean deleted, List<String> tags) {
+
+    static EntryKey of(JournalEntity journalEntity) {
+      return new EntryKey(journalEntity.getId(), journalEntity.getUserId(),
+          journalEntity.getChangeSeq(), journalEntity.getDate(), journalEntity.isDeleted(),
+          journalEntity.getTags() == null || journalEntity.isDeleted()
+              ? List.of() : List.copyOf(journalEntity.getTags()));
+    }
+  }
+}
@@ -0,0 +1,147 @@
+package com.naveen.springboot.journal.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.naveen.springboot.journal.config.BinaryFormatsConfig;
+import com.naveen.springboot.journal.entity.JournalEntity;
+import com.naveen.springboot.journal.entity.User;
+import com.naveen.springboot.journal.storage.EmbeddedStore;
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Users in the {@link EmbeddedStore}. Like the {@code @DBRef} in Mongo, a stored user only holds
+ * the ids of its journal entries, which are resolved on every read. User names are kept unique
+ * through an in-memory index.
+ */
+@Repository
+@Profile("embedded")
+public class EmbeddedUserRepository implements UserRepository {
+
+  @Autowired
+  private EmbeddedStore store;
+
+  @Autowired
+  private JournalEntryRepository journalEntryRepository;
+
+  private final ObjectMapper mapper =
+      BinaryFormatsConfig.smileMapper(Jackson2ObjectMapperBuilder.json());
+
+  private final Map<String, ObjectId> idsByUserName = new ConcurrentHashMap<>();
+  private final Map<ObjectId, String> userNamesById = new ConcurrentHashMap<>();
+
+  @PostConstruct
+  public void loadIndexes() {
+    store.addListener(EmbeddedStore.USERS, (id, payload) -> index(id,
+        payload == null ? null : decode(payload)));
+    store.forEach(EmbeddedStore.USERS, (id, payload) -> index(id, decode(payload)));
+  }
+
+  @Override
+  public synchronized <S extends User> S save(S user) {
+    if (user.getId() == null) {
+      user.setId(new ObjectId());
+    }
+    ObjectId owner = user.getUserName() == null ? null : idsByUserName.get(user.getUserName());
+    if (owner != null && !owner.equals(user.getId())) {
+      throw new DuplicateKeyException("User name already taken: " + user.getUserName());
+    }
+    List<ObjectId> journalEntries = user.getJournalEntries() == null ? List.of()
+        : user.getJournalEntries().stream()
+            .filter(Objects::nonNull)
+            .map(JournalEntity::getId)
+            .filter(Objects::nonNull)
+            .toList();
+    store.put(EmbeddedStore.USERS, user.getId(), encode(new StoredUser(user.getId(),
+        user.getUserName(), user.getPassword(), journalEntries, user.getRoles())));
+    return user;
+  }
+
+  @Override
+  public List<User> findAll() {
+    List<StoredUser> stored = new ArrayList<>();
+    store.forEach(EmbeddedStore.USERS, (id, payload) -> stored.add(decode(payload)));
+    return stored.stream().map(this::toUser).toList();
+  }
+
+  @Override
+  public Optional<User> findById(ObjectId id) {
+    if (id == null) {
+      return Optional.empty();
+    }
+    byte[] payload = store.get(EmbeddedStore.USERS, id);
+    return payload == null ? Optional.empty() : Optional.of(toUser(decode(payload)));
+  }
+
+  @Override
+  public void deleteById(ObjectId id) {
+    store.delete(EmbeddedStore.USERS, id);
+  }
+
+  @Override
+  public User findByUserName(String userName) {
+    ObjectId id = userName == null ? null : idsByUserName.get(userName);
+    return findById(id).orElse(null);
+  }
+
+  private User toUser(StoredUser stored) {
+    User user = new User();
+    user.setId(stored.id());
+    if (stored.userName() != null) {
+      user.setUserName(stored.userName());
+    }
+    if (stored.password() != null) {
+      user.setPassword(stored.password());
+    }
+    user.setRoles(stored.roles());
+    if (stored.journalEntries() != null) {
+      for (ObjectId entryId : stored.journalEntries()) {
+        journalEntryRepository.findById(entryId).ifPresent(user.getJournalEntries()::add);
+      }
+    }
+    return user;
+  }
+
+  private void index(ObjectId id, StoredUser user) {
+    String previous = user == null || user.userName() == null
+        ? userNamesById.remove(id) : userNamesById.put(id, user.userName());
+    if (previous != null) {
+      idsByUserName.remove(previous, id);
+    }
+    if (user != null && user.userName() != null) {
+      idsByUserName.put(user.userName(), id);
+    }
+  }
+
+  private byte[] encode(StoredUser user) {
+    try {
+      return mapper.writeValueAsBytes(user);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private StoredUser decode(byte[] payload) {
+    try {
+      return mapper.readValue(payload, StoredUser.class);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private record StoredUser(ObjectId id, String userName, String password,
+      List<ObjectId> journalEntries, List<String> roles) {
+  }
+}
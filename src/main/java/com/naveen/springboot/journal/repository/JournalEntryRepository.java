@@ -2,11 +2,47 @@ package com.naveen.springboot.journal.repository;
 
 
 import com.naveen.springboot.journal.entity.JournalEntity;
+import java.util.List;
+import java.util.Optional;
 import org.bson.types.ObjectId;
-import org.springframework.data.mongodb.repository.MongoRepository;
-import org.springframework.stereotype.Repository;
+import org.springframework.data.domain.Limit;
 
-@Repository
-public interface JournalEntryRepository extends MongoRepository<JournalEntity, ObjectId> {
+/**
+ * Storage for journal entries. Implemented by {@link MongoJournalEntryRepository} and, under the
+ * {@code embedded} profile, by {@link EmbeddedJournalEntryRepository}.
+ */
+public interface JournalEntryRepository {
 
+  <S extends JournalEntity> S save(S journalEntity);
+
+  Optional<JournalEntity> findById(ObjectId id);
+
+  void delete(JournalEntity journalEntity);
+
+  void deleteById(ObjectId id);
+
+  void deleteAll();
+
+  List<JournalEntity> findByDeletedNot(boolean deleted);
+
+  /**
+   * Whether any entry with the given deleted flag excluded has no owner stamped on it, i.e.
+   * predates delta sync and still needs the backfill.
+   */
+  boolean existsByUserIdIsNullAndDeletedNot(boolean deleted);
+
+  List<JournalEntity> findByUserIdIsNullAndDeletedNot(boolean deleted);
+
+  List<JournalEntity> findByUserIdAndChangeSeqGreaterThanOrderByChangeSeqAsc(ObjectId userId,
+      long changeSeq, Limit limit);
+
+  /**
+   * The user's live entries carrying every one of the tags, newest first.
+   */
+  List<JournalEntity> findByUserIdAndAllTags(ObjectId userId, List<String> tags);
+
+  /**
+   * The user's live entries carrying at least one of the tags, newest first.
+   */
+  List<JournalEntity> findByUserIdAndAnyTags(ObjectId userId, List<String> tags);
 }
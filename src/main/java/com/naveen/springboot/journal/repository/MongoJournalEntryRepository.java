@@ -0,0 +1,23 @@
+package com.naveen.springboot.journal.repository;
+
+import com.naveen.springboot.journal.entity.JournalEntity;
+import java.util.List;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MongoJournalEntryRepository extends MongoRepository<JournalEntity, ObjectId>,
+    JournalEntryRepository {
+
+  @Override
+  @Query(value = "{ 'userId': ?0, 'tags': { $all: ?1 }, 'deleted': { $ne: true } }",
+      sort = "{ 'date': -1 }")
+  List<JournalEntity> findByUserIdAndAllTags(ObjectId userId, List<String> tags);
+
+  @Override
+  @Query(value = "{ 'userId': ?0, 'tags': { $in: ?1 }, 'deleted': { $ne: true } }",
+      sort = "{ 'date': -1 }")
+  List<JournalEntity> findByUserIdAndAnyTags(ObjectId userId, List<String> tags);
+}
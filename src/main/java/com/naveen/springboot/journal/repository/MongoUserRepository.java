@@ -0,0 +1,8 @@
+package com.naveen.springboot.journal.repository;
+
+import com.naveen.springboot.journal.entity.User;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface MongoUserRepository extends MongoRepository<User, ObjectId>, UserRepository {
+}
@@ -1,10 +1,23 @@
 package com.naveen.springboot.journal.repository;
 
 import com.naveen.springboot.journal.entity.User;
+import java.util.List;
+import java.util.Optional;
 import org.bson.types.ObjectId;
-import org.springframework.data.mongodb.repository.MongoRepository;
 
-public interface UserRepository extends MongoRepository<User, ObjectId> {
+/**
+ * Storage for users. Implemented by {@link MongoUserRepository} and, under the
+ * {@code embedded} profile, by {@link EmbeddedUserRepository}.
+ */
+public interface UserRepository {
+
+  <S extends User> S save(S user);
+
+  List<User> findAll();
+
+  Optional<User> findById(ObjectId id);
+
+  void deleteById(ObjectId id);
 
   User findByUserName(String userName);
 }
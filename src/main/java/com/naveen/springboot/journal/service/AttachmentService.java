@@ -0,0 +1,339 @@
+package com.naveen.springboot.journal.service;
+
+import com.mongodb.MongoGridFSException;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSBuckets;
+import com.mongodb.client.gridfs.GridFSDownloadStream;
+import com.mongodb.client.gridfs.model.GridFSUploadOptions;
+import com.naveen.springboot.journal.entity.Attachment;
+import com.naveen.springboot.journal.entity.JournalEntity;
+import com.naveen.springboot.journal.entity.User;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpRange;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Photos, audio and other files attached to journal entries. Bytes are streamed into and out of
+ * the {@code attachments} GridFS bucket in chunks; the entry only carries {@link Attachment}
+ * references, so reading or listing entries never touches file data.
+ */
+@Component
+@Profile("!embedded")
+public class AttachmentService {
+
+  static final String BUCKET = "attachments";
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Autowired
+  private MongoDatabaseFactory mongoDatabaseFactory;
+
+  @Autowired
+  private UserService userService;
+
+  @Autowired
+  private ChangeSequence changeSequence;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Value("${journal.attachments.max-size:50MB}")
+  private DataSize maxSize = DataSize.ofMegabytes(50);
+
+  /**
+   * Streams {@code content} into GridFS and adds a reference to the entry. Returns empty if the
+   * user or entry does not exist, in which case nothing is stored.
+   *
+   * @throws IOException if reading the content fails or it exceeds the maximum size
+   */
+  public Optional<Attachment> upload(String userName, ObjectId entryId, String fileName,
+      String contentType, InputStream content) throws IOException {
+    User user = userService.findByUserName(userName);
+    if (user == null || findOwnedEntry(user, entryId) == null) {
+      return Optional.empty();
+    }
+
+    ObjectId fileId;
+    MaxSizeInputStream limited = new MaxSizeInputStream(content, maxSize.toBytes());
+    try (limited) {
+      fileId = bucket().uploadFromStream(fileName, limited, new GridFSUploadOptions()
+          .metadata(new Document("entryId", entryId)
+              .append("userId", user.getId())
+              .append("contentType", contentType)));
+    } catch (MongoGridFSException e) {
+      // The driver wraps IOExceptions from the source stream
+      if (e.getCause() instanceof IOException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+
+    Attachment attachment = new Attachment();
+    attachment.setFileId(fileId);
+    attachment.setFileName(fileName);
+    attachment.setContentType(contentType);
+    attachment.setLength(limited.getCount());
+    attachment.setUploadedAt(LocalDateTime.now());
+    long updated = transactionTemplate.execute(status -> mongoTemplate.updateFirst(
+        ownedEntry(user, entryId),
+        new Update()
+            .push("attachments", attachment)
+            .set("changeSeq", changeSequence.next("journal_entries"))
+            .set("updatedAt", LocalDateTime.now()),
+        JournalEntity.class).getModifiedCount());
+    if (updated == 0) {
+      // The entry was deleted while the file was uploading
+      bucket().delete(fileId);
+      return Optional.empty();
+    }
+    return Optional.of(attachment);
+  }
+
+  /**
+   * The attachments of the user's entry, without their bytes. Empty if the user or entry does
+   * not exist.
+   */
+  public Optional<List<Attachment>> listAttachments(String userName, ObjectId entryId) {
+    User user = userService.findByUserName(userName);
+    JournalEntity journalEntity = user == null ? null : findOwnedEntry(user, entryId);
+    if (journalEntity == null) {
+      return Optional.empty();
+    }
+    return Optional.of(journalEntity.getAttachments() == null
+        ? List.of() : journalEntity.getAttachments());
+  }
+
+  public Optional<Attachment> findAttachment(String userName, ObjectId entryId, ObjectId fileId) {
+    return listAttachments(userName, entryId).flatMap(attachments -> attachments.stream()
+        .filter(attachment -> attachment.getFileId().equals(fileId))
+        .findFirst());
+  }
+
+  /**
+   * Opens the attachment for reading, positioned at the start of {@code range} and ending after
+   * its last byte. A {@code null} range reads the whole file. GridFS seeks straight to the chunk
+   * holding the start, so earlier chunks are not fetched.
+   */
+  public InputStream open(Attachment attachment, ByteRange range) throws IOException {
+    GridFSDownloadStream stream = bucket().openDownloadStream(attachment.getFileId());
+    if (range == null) {
+      return stream;
+    }
+    try {
+      long skipped = 0;
+      while (skipped < range.start()) {
+        long n = stream.skip(range.start() - skipped);
+        if (n <= 0) {
+          throw new IOException("Attachment shorter than its recorded length");
+        }
+        skipped += n;
+      }
+    } catch (IOException | RuntimeException e) {
+      stream.close();
+      throw e;
+    }
+    return new RangeInputStream(stream, range.length());
+  }
+
+  /**
+   * Removes the reference from the entry and deletes the file. Returns false if the user, entry
+   * or attachment does not exist.
+   */
+  public boolean delete(String userName, ObjectId entryId, ObjectId fileId) {
+    User user = userService.findByUserName(userName);
+    if (user == null) {
+      return false;
+    }
+    long updated = transactionTemplate.execute(status -> mongoTemplate.updateFirst(
+        ownedEntry(user, entryId).addCriteria(where("attachments.fileId").is(fileId)),
+        new Update()
+            .pull("attachments", new Document("fileId", fileId))
+            .set("changeSeq", changeSequence.next("journal_entries"))
+            .set("updatedAt", LocalDateTime.now()),
+        JournalEntity.class).getModifiedCount());
+    if (updated == 0) {
+      return false;
+    }
+    deleteFiles(List.of(fileId));
+    return true;
+  }
+
+  /**
+   * Deletes the files behind the given references, ignoring ones that are already gone.
+   */
+  public void deleteFiles(List<ObjectId> fileIds) {
+    GridFSBucket bucket = bucket();
+    for (ObjectId fileId : fileIds) {
+      try {
+        bucket.delete(fileId);
+      } catch (MongoGridFSException e) {
+        // Already deleted
+      }
+    }
+  }
+
+  private JournalEntity findOwnedEntry(User user, ObjectId entryId) {
+    Query query = ownedEntry(user, entryId);
+    query.fields().include("userId", "attachments");
+    return mongoTemplate.findOne(query, JournalEntity.class);
+  }
+
+  private static Query ownedEntry(User user, ObjectId entryId) {
+    return Query.query(where("_id").is(entryId)
+        .and("userId").is(user.getId())
+        .and("deleted").ne(true));
+  }
+
+  private GridFSBucket bucket() {
+    return GridFSBuckets.create(mongoDatabaseFactory.getMongoDatabase(), BUCKET);
+  }
+
+  /**
+   * An inclusive byte range within a file of known length.
+   */
+  public record ByteRange(long start, long end, long total) {
+
+    public long length() {
+      return end - start + 1;
+    }
+
+    /**
+     * Resolves an HTTP {@code Range} header against a file length. Returns {@code null} when no
+     * range was requested. Several ranges are coalesced into one spanning all of them.
+     *
+     * @throws IllegalArgumentException if the header is malformed or not satisfiable
+     */
+    public static ByteRange of(String rangeHeader, long total) {
+      if (rangeHeader == null || rangeHeader.isBlank()) {
+        return null;
+      }
+      List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+      if (ranges.isEmpty() || total == 0) {
+        throw new IllegalArgumentException("Range not satisfiable: " + rangeHeader);
+      }
+      long start = Long.MAX_VALUE;
+      long end = -1;
+      for (HttpRange range : ranges) {
+        long rangeStart = range.getRangeStart(total);
+        if (rangeStart >= total) {
+          throw new IllegalArgumentException("Range not satisfiable: " + rangeHeader);
+        }
+        start = Math.min(start, rangeStart);
+        end = Math.max(end, range.getRangeEnd(total));
+      }
+      return new ByteRange(start, end, total);
+    }
+  }
+
+  private static class RangeInputStream extends FilterInputStream {
+
+    private long remaining;
+
+    RangeInputStream(InputStream in, long length) {
+      super(in);
+      this.remaining = length;
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (remaining <= 0) {
+        return -1;
+      }
+      int b = super.read();
+      if (b >= 0) {
+        remaining--;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (remaining <= 0) {
+        return -1;
+      }
+      int n = super.read(b, off, (int) Math.min(len, remaining));
+      if (n > 0) {
+        remaining -= n;
+      }
+      return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(Math.min(n, remaining));
+      remaining -= skipped;
+      return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+      return (int) Math.min(super.available(), remaining);
+    }
+  }
+
+  static class MaxSizeInputStream extends FilterInputStream {
+
+    private final long maxSize;
+    private long count;
+
+    MaxSizeInputStream(InputStream in, long maxSize) {
+      super(in);
+      this.maxSize = maxSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b >= 0) {
+        count(1);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int n = super.read(b, off, len);
+      if (n > 0) {
+        count(n);
+      }
+      return n;
+    }
+
+    long getCount() {
+      return count;
+    }
+
+    private void count(long n) throws IOException {
+      count += n;
+      if (count > maxSize) {
+        throw new AttachmentTooLargeException(maxSize);
+      }
+    }
+  }
+
+  public static class AttachmentTooLargeException extends IOException {
+
+    public AttachmentTooLargeException(long maxSize) {
+      super("Attachment exceeds " + maxSize + " bytes");
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package com.naveen.springboot.journal.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * A bounded executor for one class of work. Tasks beyond the pool and queue capacity are
+ * rejected straight away and tasks that exceed the timeout complete with a
+ * {@link TimeoutException}, so a backlog in one bulkhead never borrows threads from another.
+ * A timed out task is also cancelled: it is dropped if still queued and interrupted if running.
+ * The interrupt is best effort and a write already under way may still commit after its caller
+ * saw the timeout.
+ */
+public class Bulkhead implements MeterBinder, DisposableBean {
+
+  private final String name;
+  private final ThreadPoolExecutor executor;
+  private final Duration timeout;
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder timedOut = new LongAdder();
+
+  public Bulkhead(String name, int coreSize, int maxSize, int queueCapacity, Duration timeout) {
+    this.name = name;
+    this.timeout = timeout;
+    this.executor = new ThreadPoolExecutor(coreSize, maxSize, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        new CustomizableThreadFactory("journal-" + name + "-"),
+        new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  public <T> CompletableFuture<T> submit(Supplier<T> task) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    Future<?> running;
+    try {
+      running = executor.submit(() -> {
+        try {
+          result.complete(task.get());
+        } catch (Throwable e) {
+          result.completeExceptionally(e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      return CompletableFuture.failedFuture(
+          new RejectedExecutionException("Bulkhead '" + name + "' is saturated", e));
+    }
+    return result.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+        .whenComplete((value, ex) -> {
+          if (ex instanceof TimeoutException) {
+            timedOut.increment();
+            running.cancel(true);
+          }
+        });
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public Duration getTimeout() {
+    return timeout;
+  }
+
+  public long getRejected() {
+    return rejected.sum();
+  }
+
+  public long getTimedOut() {
+    return timedOut.sum();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    new ExecutorServiceMetrics(executor, name, "journal.bulkhead", Tags.empty())
+        .bindTo(registry);
+    FunctionCounter.builder("journal.bulkhead.rejected", this, Bulkhead::getRejected)
+        .tag("name", name)
+        .description("Tasks rejected because the pool and queue were full")
+        .register(registry);
+    FunctionCounter.builder("journal.bulkhead.timeouts", this, Bulkhead::getTimedOut)
+        .tag("name", name)
+        .description("Tasks that did not complete within the bulkhead timeout")
+        .register(registry);
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdown();
+  }
+}
@@ -0,0 +1,21 @@
+package com.naveen.springboot.journal.service;
+
+/**
+ * Named, monotonically increasing counters, used to stamp every entry change with a
+ * {@code changeSeq} for delta sync. Values must be drawn inside the transaction that writes
+ * them, which then has to commit within {@code journal.sync.commit-deadline}.
+ */
+public interface ChangeSequence {
+
+  default long next(String name) {
+    return reserve(name, 1);
+  }
+
+  /**
+   * Reserves {@code count} consecutive values and returns the highest, so the block is
+   * {@code (result - count, result]}.
+   *
+   * @throws IllegalStateException if no transaction is active
+   */
+  long reserve(String name, int count);
+}
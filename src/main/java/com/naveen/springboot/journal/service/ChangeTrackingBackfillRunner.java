@@ -0,0 +1,30 @@
+package com.naveen.springboot.journal.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Backfills delta-sync fields on entries written before they existed, see
+ * {@link JournalEntryService#backfillChangeTracking()}. Once every live entry has an owner the
+ * check at startup is a single indexed lookup. Disable with {@code journal.sync.backfill=false}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "journal.sync.backfill", havingValue = "true", matchIfMissing = true)
+public class ChangeTrackingBackfillRunner implements ApplicationRunner {
+
+  @Autowired
+  private JournalEntryService journalEntryService;
+
+  @Override
+  public void run(ApplicationArguments args) {
+    int backfilled = journalEntryService.backfillChangeTracking();
+    if (backfilled > 0) {
+      log.info("Backfilled change tracking on {} journal entries", backfilled);
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package com.naveen.springboot.journal.service;
+
+import java.time.Duration;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Fails the commit of a transaction that did not get to commit within a deadline of drawing a
+ * change sequence number, rolling it back. Together with the storage's cap on the commit itself
+ * this bounds how long a drawn number can stay invisible, which the sync settle time relies on.
+ */
+final class CommitDeadline implements TransactionSynchronization {
+
+  private final long deadline;
+  private final Duration limit;
+
+  private CommitDeadline(Duration limit) {
+    this.deadline = System.nanoTime() + limit.toNanos();
+    this.limit = limit;
+  }
+
+  /**
+   * Starts the deadline for the current transaction.
+   *
+   * @throws IllegalStateException if no transaction is active
+   */
+  static void start(Duration limit) {
+    if (!TransactionSynchronizationManager.isActualTransactionActive()
+        || !TransactionSynchronizationManager.isSynchronizationActive()) {
+      throw new IllegalStateException(
+          "Change sequence numbers must be drawn inside the transaction that writes them");
+    }
+    TransactionSynchronizationManager.registerSynchronization(new CommitDeadline(limit));
+  }
+
+  @Override
+  public void beforeCommit(boolean readOnly) {
+    if (System.nanoTime() - deadline > 0) {
+      throw new TransactionTimedOutException("Transaction did not commit within " + limit
+          + " of drawing a change sequence number");
+    }
+  }
+}
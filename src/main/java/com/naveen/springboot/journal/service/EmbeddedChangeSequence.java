@@ -0,0 +1,43 @@
+package com.naveen.springboot.journal.service;
+
+import com.naveen.springboot.journal.repository.EmbeddedJournalEntryRepository;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory counters for the {@code embedded} profile. Nothing is persisted: on startup the
+ * {@code journal_entries} sequence resumes after the highest {@code changeSeq} in the store,
+ * which tombstones keep from going backwards when entries are deleted.
+ */
+@Component
+@Profile("embedded")
+public class EmbeddedChangeSequence implements ChangeSequence {
+
+  static final String JOURNAL_ENTRIES = "journal_entries";
+
+  @Autowired
+  private EmbeddedJournalEntryRepository journalEntryRepository;
+
+  @Value("${journal.sync.commit-deadline:8s}")
+  private Duration commitDeadline = Duration.ofSeconds(8);
+
+  private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+  @PostConstruct
+  public void resume() {
+    counters.put(JOURNAL_ENTRIES, new AtomicLong(journalEntryRepository.maxChangeSeq()));
+  }
+
+  @Override
+  public long reserve(String name, int count) {
+    CommitDeadline.start(commitDeadline);
+    return counters.computeIfAbsent(name, n -> new AtomicLong()).addAndGet(count);
+  }
+}
@@ -0,0 +1,42 @@
+package com.naveen.springboot.journal.service;
+
+import com.naveen.springboot.journal.repository.EmbeddedJournalEntryRepository;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tag counts for the {@code embedded} profile, read straight from the repository's in-memory
+ * tag index. That index already follows every committed write, so there is nothing to apply or
+ * rebuild.
+ */
+@Component
+@Profile("embedded")
+public class EmbeddedTagCounter implements TagCounter {
+
+  @Autowired
+  private EmbeddedJournalEntryRepository journalEntryRepository;
+
+  @Override
+  public void apply(ObjectId userId, Collection<String> before, Collection<String> after) {
+  }
+
+  @Override
+  public List<TagCount> counts(ObjectId userId, int limit) {
+    return journalEntryRepository.countTags(userId).entrySet().stream()
+        .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+            .thenComparing(Map.Entry.comparingByKey()))
+        .limit(limit)
+        .map(count -> new TagCount(count.getKey(), count.getValue()))
+        .toList();
+  }
+
+  @Override
+  public void rebuild(ObjectId userId) {
+  }
+}
@@ -0,0 +1,249 @@
+package com.naveen.springboot.journal.service;
+
+import com.naveen.springboot.journal.entity.Enrichment;
+import com.naveen.springboot.journal.entity.EnrichmentTask;
+import com.naveen.springboot.journal.entity.JournalEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Background workers that drain the {@link EnrichmentQueue}. Each worker claims a batch, loads
+ * the entries in one query, computes their {@link Enrichment} and writes the results back in one
+ * unordered bulk update. A write only applies if the entry has not been saved again since it
+ * was loaded; the newer save queued it again anyway. An entry that fails to enrich is skipped
+ * and its task left leased for a later attempt, so it does not hold back the rest of the batch.
+ *
+ * <p>Enriched entries get a fresh {@code changeSeq} so sync clients receive the derived fields;
+ * the numbers are drawn and written in one transaction.
+ * Workers stop with the application context and leave their leased tasks to expire, so nothing
+ * is lost across restarts.
+ */
+@Slf4j
+public class EnrichmentPipeline implements SmartLifecycle, MeterBinder {
+
+  private final EnrichmentQueue queue;
+  private final EntryEnricher enricher;
+  private final MongoTemplate mongoTemplate;
+  private final ChangeSequence changeSequence;
+  private final TransactionTemplate transactionTemplate;
+  private final int workers;
+  private final int batchSize;
+  private final Duration pollInterval;
+  private final Duration lease;
+  private final int maxAttempts;
+
+  private volatile boolean running;
+  private ExecutorService executor;
+  private Counter processed;
+  private Counter failed;
+  private Counter abandoned;
+  private Timer lag;
+  private Timer batches;
+
+  public EnrichmentPipeline(EnrichmentQueue queue, EntryEnricher enricher,
+      MongoTemplate mongoTemplate, ChangeSequence changeSequence,
+      TransactionTemplate transactionTemplate, int workers, int batchSize, Duration pollInterval,
+      Duration lease, int maxAttempts) {
+    this.queue = queue;
+    this.enricher = enricher;
+    this.mongoTemplate = mongoTemplate;
+    this.changeSequence = changeSequence;
+    this.transactionTemplate = transactionTemplate;
+    this.workers = workers;
+    this.batchSize = batchSize;
+    this.pollInterval = pollInterval;
+    this.lease = lease;
+    this.maxAttempts = maxAttempts;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    processed = Counter.builder("journal.enrichment.processed")
+        .description("Entries enriched; its rate is the pipeline throughput")
+        .register(registry);
+    failed = Counter.builder("journal.enrichment.failed")
+        .description("Batches or single entries that failed and were left for retry")
+        .register(registry);
+    abandoned = Counter.builder("journal.enrichment.abandoned")
+        .description("Tasks dropped after too many attempts")
+        .register(registry);
+    lag = Timer.builder("journal.enrichment.lag")
+        .description("Time from an entry being queued to its enrichment being written")
+        .register(registry);
+    batches = Timer.builder("journal.enrichment.batch")
+        .description("Time to claim, enrich and write back one batch")
+        .register(registry);
+    Gauge.builder("journal.enrichment.pending", queue, EnrichmentQueue::pendingCount)
+        .description("Entries waiting for enrichment")
+        .register(registry);
+    Gauge.builder("journal.enrichment.backlog.age", queue, EnrichmentPipeline::backlogAgeSeconds)
+        .description("Seconds since the oldest pending entry was queued")
+        .baseUnit("seconds")
+        .register(registry);
+  }
+
+  @Override
+  public synchronized void start() {
+    if (running) {
+      return;
+    }
+    running = true;
+    executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(), new CustomizableThreadFactory("journal-enrichment-"));
+    for (int i = 0; i < workers; i++) {
+      executor.execute(this::work);
+    }
+  }
+
+  @Override
+  public synchronized void stop() {
+    if (!running) {
+      return;
+    }
+    running = false;
+    executor.shutdownNow();
+    try {
+      executor.awaitTermination(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  private void work() {
+    while (running) {
+      try {
+        if (processBatch() < batchSize) {
+          Thread.sleep(pollInterval.toMillis());
+        }
+      } catch (InterruptedException e) {
+        return;
+      } catch (RuntimeException e) {
+        if (failed != null) {
+          failed.increment();
+        }
+        log.error("Enrichment batch failed, leaving it for retry in {}", pollInterval, e);
+        try {
+          Thread.sleep(pollInterval.toMillis());
+        } catch (InterruptedException interrupted) {
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Claims and processes one batch, returning the number of tasks claimed.
+   */
+  int processBatch() {
+    long start = System.nanoTime();
+    List<EnrichmentTask> tasks = queue.claim(batchSize, lease);
+    if (tasks.isEmpty()) {
+      return 0;
+    }
+
+    List<EnrichmentTask> attempted = new ArrayList<>(tasks.size());
+    for (EnrichmentTask task : tasks) {
+      if (task.getAttempts() <= maxAttempts) {
+        attempted.add(task);
+      } else if (abandoned != null) {
+        abandoned.increment();
+      }
+    }
+    List<ObjectId> ids = attempted.stream().map(EnrichmentTask::getId).toList();
+    List<JournalEntity> enriched = new ArrayList<>(ids.size());
+    Set<ObjectId> failedIds = new HashSet<>();
+    try {
+      List<JournalEntity> live = ids.isEmpty() ? List.of() : mongoTemplate
+          .find(Query.query(where("_id").in(ids)), JournalEntity.class).stream()
+          .filter(journalEntity -> !journalEntity.isDeleted())
+          .toList();
+      for (JournalEntity journalEntity : live) {
+        try {
+          journalEntity.setEnrichment(enricher.enrich(journalEntity));
+          enriched.add(journalEntity);
+        } catch (RuntimeException e) {
+          failedIds.add(journalEntity.getId());
+          if (failed != null) {
+            failed.increment();
+          }
+          log.warn("Enriching journal entry {} failed, leaving it for retry",
+              journalEntity.getId(), e);
+        }
+      }
+
+      if (!enriched.isEmpty()) {
+        transactionTemplate.executeWithoutResult(status -> write(enriched));
+      }
+    } catch (RuntimeException e) {
+      throw new IllegalStateException("Enriching journal entries " + ids + " failed", e);
+    }
+    // Abandoned tasks are removed along with the finished ones; missing and deleted entries
+    // need no enrichment. Failed ones stay leased and are claimed again once the lease is up.
+    queue.complete(failedIds.isEmpty() ? tasks : tasks.stream()
+        .filter(task -> !failedIds.contains(task.getId()))
+        .toList());
+
+    if (processed != null) {
+      processed.increment(enriched.size());
+      LocalDateTime now = LocalDateTime.now();
+      for (EnrichmentTask task : attempted) {
+        if (task.getEnqueuedAt() != null && !failedIds.contains(task.getId())) {
+          lag.record(Duration.between(task.getEnqueuedAt(), now));
+        }
+      }
+      batches.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+    return tasks.size();
+  }
+
+  private void write(List<JournalEntity> enriched) {
+    long changeSeq = changeSequence.reserve("journal_entries", enriched.size()) - enriched.size();
+    LocalDateTime updatedAt = LocalDateTime.now();
+    BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED,
+        JournalEntity.class);
+    for (JournalEntity journalEntity : enriched) {
+      bulk.updateOne(
+          Query.query(where("_id").is(journalEntity.getId())
+              .and("changeSeq").is(journalEntity.getChangeSeq())),
+          new Update()
+              .set("enrichment", journalEntity.getEnrichment())
+              .set("changeSeq", ++changeSeq)
+              .set("updatedAt", updatedAt));
+    }
+    bulk.execute();
+  }
+
+  private static double backlogAgeSeconds(EnrichmentQueue queue) {
+    LocalDateTime oldest = queue.oldestEnqueuedAt();
+    return oldest == null ? 0 : Duration.between(oldest, LocalDateTime.now()).toMillis() / 1000.0;
+  }
+}
@@ -0,0 +1,109 @@
+package com.naveen.springboot.journal.service;
+
+import com.naveen.springboot.journal.entity.EnrichmentTask;
+import com.naveen.springboot.journal.entity.JournalEntity;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Durable queue of entries waiting for enrichment, kept in the {@code enrichment_queue}
+ * collection. Tasks are claimed with a lease instead of being removed, so work held by a worker
+ * that dies or shuts down is picked up again once the lease runs out.
+ */
+@Component
+@Profile("!embedded")
+public class EnrichmentQueue {
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  /**
+   * Queues the entry at its current {@code changeSeq}. Called from the save transaction, so the
+   * task commits or rolls back together with the entry.
+   */
+  public void enqueue(JournalEntity journalEntity) {
+    LocalDateTime now = LocalDateTime.now();
+    mongoTemplate.upsert(
+        Query.query(where("_id").is(journalEntity.getId())),
+        new Update()
+            .set("changeSeq", journalEntity.getChangeSeq())
+            .set("leaseUntil", now)
+            .unset("owner")
+            .set("attempts", 0)
+            .setOnInsert("enqueuedAt", now),
+        EnrichmentTask.class);
+  }
+
+  /**
+   * Leases up to {@code limit} claimable tasks, oldest first. Tasks another worker claims in the
+   * meantime are skipped, so the result may be shorter than the tasks found.
+   */
+  public List<EnrichmentTask> claim(int limit, Duration lease) {
+    LocalDateTime now = LocalDateTime.now();
+    Query claimable = Query.query(where("leaseUntil").lte(now))
+        .with(Sort.by("leaseUntil"))
+        .limit(limit);
+    claimable.fields().include("_id");
+    List<ObjectId> ids = mongoTemplate.find(claimable, EnrichmentTask.class).stream()
+        .map(EnrichmentTask::getId)
+        .toList();
+    if (ids.isEmpty()) {
+      return List.of();
+    }
+
+    String owner = UUID.randomUUID().toString();
+    mongoTemplate.updateMulti(
+        Query.query(where("_id").in(ids).and("leaseUntil").lte(now)),
+        new Update()
+            .set("leaseUntil", now.plus(lease))
+            .set("owner", owner)
+            .inc("attempts", 1),
+        EnrichmentTask.class);
+    return mongoTemplate.find(Query.query(where("_id").in(ids).and("owner").is(owner)),
+        EnrichmentTask.class);
+  }
+
+  /**
+   * Removes finished tasks. A task whose entry was saved again after the claim has a newer
+   * {@code changeSeq} and stays queued.
+   */
+  public void complete(List<EnrichmentTask> tasks) {
+    if (tasks.isEmpty()) {
+      return;
+    }
+    BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED,
+        EnrichmentTask.class);
+    for (EnrichmentTask task : tasks) {
+      bulk.remove(Query.query(where("_id").is(task.getId())
+          .and("changeSeq").is(task.getChangeSeq())));
+    }
+    bulk.execute();
+  }
+
+  public long pendingCount() {
+    return mongoTemplate.estimatedCount(EnrichmentTask.class);
+  }
+
+  /**
+   * When the oldest queued task was first queued, or {@code null} if the queue is empty.
+   */
+  public LocalDateTime oldestEnqueuedAt() {
+    Query oldest = new Query().with(Sort.by("enqueuedAt")).limit(1);
+    oldest.fields().include("enqueuedAt");
+    EnrichmentTask task = mongoTemplate.findOne(oldest, EnrichmentTask.class);
+    return task == null ? null : task.getEnqueuedAt();
+  }
+}
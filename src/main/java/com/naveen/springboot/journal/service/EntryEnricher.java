@@ -0,0 +1,126 @@
+package com.naveen.springboot.journal.service;
+
+import com.naveen.springboot.journal.entity.Enrichment;
+import com.naveen.springboot.journal.entity.JournalEntity;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Component;
+
+/**
+ * Computes {@link Enrichment} fields from an entry's text. Language detection counts common
+ * function words per language, which is enough for journal-length text. Tags are the entry's
+ * hashtags or, without any, its most repeated longer words.
+ */
+@Component
+public class EntryEnricher {
+
+  static final int WORDS_PER_MINUTE = 200;
+  static final int MAX_TAGS = 5;
+  static final String UNDETERMINED = "und";
+
+  private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}']+");
+  private static final Pattern HASHTAG = Pattern.compile("#([\\p{L}\\p{N}_]{2,50})");
+
+  // Ties go to the language listed first
+  private static final List<String> LANGUAGES = List.of("en", "es", "fr", "de", "it", "pt");
+
+  private static final Map<String, Set<String>> STOP_WORDS = Map.of(
+      "en", Set.of("the", "and", "is", "was", "to", "of", "in", "it", "that", "with", "for",
+          "my", "on", "this", "but", "have", "had", "were", "today", "what"),
+      "es", Set.of("el", "la", "de", "que", "y", "en", "los", "las", "una", "por", "con",
+          "para", "es", "fue", "pero", "mi", "hoy", "muy", "como", "del"),
+      "fr", Set.of("le", "la", "les", "de", "et", "est", "une", "des", "que", "pour", "dans",
+          "avec", "mais", "pas", "je", "mon", "ai", "aujourd'hui", "sur", "du"),
+      "de", Set.of("der", "die", "das", "und", "ist", "nicht", "ich", "mit", "ein", "eine",
+          "zu", "auf", "war", "aber", "heute", "mein", "den", "dem", "sich", "auch"),
+      "it", Set.of("il", "di", "che", "e", "la", "un", "una", "per", "con", "sono", "non",
+          "ma", "oggi", "mio", "della", "gli", "anche", "nel", "come", "era"),
+      "pt", Set.of("o", "os", "de", "que", "e", "do", "da", "em", "um", "uma", "para",
+          "com", "não", "mas", "hoje", "meu", "foi", "muito", "como", "dos"));
+
+  private static final Set<String> ALL_STOP_WORDS = STOP_WORDS.values().stream()
+      .flatMap(Set::stream)
+      .collect(Collectors.toUnmodifiableSet());
+
+  public Enrichment enrich(JournalEntity journalEntity) {
+    String text = join(journalEntity.getTitle(), journalEntity.getContent());
+    List<String> words = words(text);
+
+    Enrichment enrichment = new Enrichment();
+    enrichment.setWordCount(words.size());
+    enrichment.setReadingTimeSeconds(
+        (int) Math.ceil(words.size() * 60.0 / WORDS_PER_MINUTE));
+    enrichment.setLanguage(detectLanguage(words));
+    enrichment.setTags(extractTags(text, words));
+    enrichment.setEnrichedAt(LocalDateTime.now());
+    return enrichment;
+  }
+
+  static String detectLanguage(List<String> words) {
+    String best = UNDETERMINED;
+    int bestHits = 0;
+    for (String language : LANGUAGES) {
+      Set<String> stopWords = STOP_WORDS.get(language);
+      int hits = 0;
+      for (String word : words) {
+        if (stopWords.contains(word)) {
+          hits++;
+        }
+      }
+      if (hits > bestHits) {
+        best = language;
+        bestHits = hits;
+      }
+    }
+    return best;
+  }
+
+  static List<String> extractTags(String text, List<String> words) {
+    Set<String> hashtags = new LinkedHashSet<>();
+    Matcher matcher = HASHTAG.matcher(text);
+    while (matcher.find() && hashtags.size() < MAX_TAGS) {
+      hashtags.add(matcher.group(1).toLowerCase(Locale.ROOT));
+    }
+    if (!hashtags.isEmpty()) {
+      return List.copyOf(hashtags);
+    }
+
+    Map<String, Integer> counts = new HashMap<>();
+    for (String word : words) {
+      if (word.length() >= 4 && !ALL_STOP_WORDS.contains(word)) {
+        counts.merge(word, 1, Integer::sum);
+      }
+    }
+    List<Map.Entry<String, Integer>> repeated = new ArrayList<>();
+    for (Map.Entry<String, Integer> count : counts.entrySet()) {
+      if (count.getValue() > 1) {
+        repeated.add(count);
+      }
+    }
+    repeated.sort(Map.Entry.<String, Integer>comparingByValue().reversed()
+        .thenComparing(Map.Entry.comparingByKey()));
+    return repeated.stream().limit(MAX_TAGS).map(Map.Entry::getKey).toList();
+  }
+
+  private static List<String> words(String text) {
+    List<String> words = new ArrayList<>();
+    Matcher matcher = WORD.matcher(text);
+    while (matcher.find()) {
+      words.add(matcher.group().toLowerCase(Locale.ROOT));
+    }
+    return words;
+  }
+
+  private static String join(String title, String content) {
+    return (title == null ? "" : title) + "\n" + (content == null ? "" : content);
+  }
+}
@@ -1,15 +1,26 @@
 package com.naveen.springboot.journal.service;
 
+import com.naveen.springboot.journal.entity.Attachment;
 import com.naveen.springboot.journal.entity.JournalEntity;
 import com.naveen.springboot.journal.entity.User;
 import com.naveen.springboot.journal.repository.JournalEntryRepository;
+import com.naveen.springboot.journal.service.TagCounter.TagCount;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Component
 public class JournalEntryService {
@@ -20,14 +31,70 @@ public class JournalEntryService {
   @Autowired
   private UserService userService;
 
+  @Autowired
+  private ChangeSequence changeSequence;
+
+  // Both absent with the embedded storage profile
+  @Autowired(required = false)
+  private EnrichmentQueue enrichmentQueue;
+
+  @Autowired(required = false)
+  private AttachmentService attachmentService;
+
+  @Autowired
+  private TagCounter tagCounter;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  // Changes younger than this are held back from sync so a slower writer that drew a lower
+  // sequence number cannot commit behind a token a client already holds. Every writer draws its
+  // number inside a transaction that is rolled back unless it commits within commit-deadline,
+  // and Mongo gives up on a commit after max-commit-time, so the settle time is never shorter
+  // than the two together. What is left over covers clock skew between instances.
+  @Value("${journal.sync.settle-time:12s}")
+  private Duration syncSettleTime = Duration.ofSeconds(12);
+
+  @Value("${journal.sync.commit-deadline:8s}")
+  private Duration commitDeadline = Duration.ofSeconds(8);
+
+  @Value("${journal.sync.max-commit-time:2s}")
+  private Duration maxCommitTime = Duration.ofSeconds(2);
+
+  static final int MAX_TAGS = 20;
+  static final int MAX_TAG_LENGTH = 50;
+
+  private final SingleFlight<ObjectId, Optional<JournalEntity>> entryById =
+      new SingleFlight<>("journal.getJournalEntryById");
+
+  @Autowired
+  public void setMeterRegistry(MeterRegistry meterRegistry) {
+    entryById.bindTo(meterRegistry);
+  }
+
   @Transactional
   public void saveEntry(JournalEntity journalEntity, String userName) {
     try {
-      User user = userService.findByUserName(userName);
+      User user = userService.findByUserNameForUpdate(userName);
 
       journalEntity.setDate(LocalDateTime.now());
+      journalEntity.setUserId(user.getId());
+      journalEntity.setTags(normalizeTags(journalEntity.getTags()));
+      List<String> previousTags = journalEntity.getId() == null ? null
+          : journalEntryRepository.findById(journalEntity.getId())
+              .map(JournalEntity::getTags)
+              .orElse(null);
+      markChanged(journalEntity);
       JournalEntity saved = journalEntryRepository.save(journalEntity);
-      user.getJournalEntries().add(saved);
+      tagCounter.apply(user.getId(), previousTags, saved.getTags());
+      if (enrichmentQueue != null) {
+        enrichmentQueue.enqueue(saved);
+      }
+      // Updates go through here too; the user already references those entries
+      if (user.getJournalEntries().stream()
+          .noneMatch(journalEntry -> saved.getId().equals(journalEntry.getId()))) {
+        user.getJournalEntries().add(saved);
+      }
       userService.saveUser(user);
     } catch (Exception e) {
       System.out.println(e);
@@ -36,18 +103,197 @@ public class JournalEntryService {
   }
 
   public List<JournalEntity> getAllJournalEntries() {
-    return journalEntryRepository.findAll();
+    return journalEntryRepository.findByDeletedNot(true);
+  }
+
+  /**
+   * The user's live entries, in the order they were added.
+   */
+  public List<JournalEntity> getJournalEntriesOfUser(User user) {
+    return user.getJournalEntries().stream()
+        .filter(journalEntity -> !journalEntity.isDeleted())
+        .toList();
+  }
+
+  /**
+   * The user's entries carrying all (or, with {@code matchAll} false, any) of the given tags,
+   * newest first.
+   */
+  public List<JournalEntity> getJournalEntriesByTags(User user, List<String> tags,
+      boolean matchAll) {
+    List<String> normalized = normalizeTags(tags);
+    if (normalized.isEmpty()) {
+      return List.of();
+    }
+    return matchAll
+        ? journalEntryRepository.findByUserIdAndAllTags(user.getId(), normalized)
+        : journalEntryRepository.findByUserIdAndAnyTags(user.getId(), normalized);
+  }
+
+  /**
+   * Per-tag entry counts for the user, read from the counter document maintained on save and
+   * delete. Returns {@code null} if the user does not exist.
+   */
+  public List<TagCount> getTagCounts(String userName, int limit) {
+    User user = userService.findByUserName(userName);
+    if (user == null) {
+      return null;
+    }
+    return tagCounter.counts(user.getId(), limit);
   }
 
+  /**
+   * Concurrent lookups of the same id share one query and one {@link JournalEntity} instance, so
+   * the result must not be modified. Use {@link #getJournalEntryByIdForUpdate(ObjectId)} before
+   * saving.
+   */
   public Optional<JournalEntity> getJournalEntryById(ObjectId id) {
-    return journalEntryRepository.findById(id);
+    return entryById.execute(id, () -> getJournalEntryByIdForUpdate(id));
+  }
+
+  public Optional<JournalEntity> getJournalEntryByIdForUpdate(ObjectId id) {
+    return journalEntryRepository.findById(id).filter(journalEntity -> !journalEntity.isDeleted());
   }
 
+  /**
+   * Replaces the entry with a tombstone so offline clients learn about the delete on their next
+   * sync. The tombstone keeps only the id, owner and change metadata; attachment files are
+   * deleted once it is committed.
+   */
   public void deleteEntityById(ObjectId id, String userName) {
+    List<Attachment> attachments = transactionTemplate.execute(status -> {
+      User user = userService.findByUserNameForUpdate(userName);
+      user.getJournalEntries().removeIf(journalEntity -> journalEntity.getId().equals(id));
+      userService.saveUser(user);
+      return journalEntryRepository.findById(id).map(journalEntity -> {
+        journalEntity.setTitle(null);
+        journalEntity.setContent(null);
+        journalEntity.setDeleted(true);
+        journalEntity.setEnrichment(null);
+        if (journalEntity.getUserId() != null) {
+          tagCounter.apply(journalEntity.getUserId(), journalEntity.getTags(), null);
+        }
+        journalEntity.setTags(null);
+        List<Attachment> removed = journalEntity.getAttachments();
+        journalEntity.setAttachments(null);
+        if (journalEntity.getUserId() == null) {
+          journalEntity.setUserId(user.getId());
+        }
+        markChanged(journalEntity);
+        journalEntryRepository.save(journalEntity);
+        return removed;
+      }).orElse(null);
+    });
+    if (attachments != null && attachmentService != null) {
+      attachmentService.deleteFiles(attachments.stream().map(Attachment::getFileId).toList());
+    }
+  }
+
+  /**
+   * Returns the user's entries created, updated or deleted after the given token, oldest change
+   * first. Deleted entries come back as tombstones with {@code deleted} set. Pass the returned
+   * {@code nextToken} on the following call; {@code 0} starts from the beginning. {@code hasMore}
+   * is set only when the page was cut off at {@code limit}; changes still inside the settle time
+   * are held back and {@code retryAfterSeconds} says when the first of them will be returned.
+   */
+  public ChangePage getChangesSince(String userName, long token, int limit) {
     User user = userService.findByUserName(userName);
-    user.getJournalEntries().removeIf(journalEntity -> journalEntity.getId().equals(id));
-    userService.saveUser(user);
-    journalEntryRepository.deleteById(id);
+    if (user == null) {
+      return null;
+    }
+    List<JournalEntity> page = journalEntryRepository
+        .findByUserIdAndChangeSeqGreaterThanOrderByChangeSeqAsc(user.getId(), token,
+            Limit.of(limit + 1));
+    Duration commitBound = commitDeadline.plus(maxCommitTime);
+    Duration settleTime = syncSettleTime.compareTo(commitBound) < 0 ? commitBound
+        : syncSettleTime;
+    LocalDateTime settled = LocalDateTime.now().minus(settleTime);
+    List<JournalEntity> changes = new ArrayList<>(Math.min(page.size(), limit));
+    long nextToken = token;
+    boolean hasMore = false;
+    long retryAfterSeconds = 0;
+    for (JournalEntity journalEntity : page) {
+      if (journalEntity.getUpdatedAt().isAfter(settled)) {
+        long unsettledMillis = Duration.between(settled, journalEntity.getUpdatedAt()).toMillis();
+        retryAfterSeconds = Math.max(1, (unsettledMillis + 999) / 1000);
+        break;
+      }
+      if (changes.size() == limit) {
+        hasMore = true;
+        break;
+      }
+      changes.add(journalEntity);
+      nextToken = journalEntity.getChangeSeq();
+    }
+    return new ChangePage(changes, nextToken, hasMore, retryAfterSeconds);
+  }
+
+  /**
+   * Stamps entries written before delta sync existed with their owner and a fresh sequence
+   * number, so a sync from token {@code 0} returns them. Owners are found through
+   * {@link User#getJournalEntries()}; entries that already have one are left alone. Entries no
+   * user references are marked deleted, keeping their content, so they stop triggering the
+   * backfill. Returns the number of entries updated.
+   */
+  public int backfillChangeTracking() {
+    if (!journalEntryRepository.existsByUserIdIsNullAndDeletedNot(true)) {
+      return 0;
+    }
+    int backfilled = 0;
+    for (User user : userService.getAll()) {
+      for (JournalEntity journalEntity : user.getJournalEntries()) {
+        if (journalEntity.getUserId() == null) {
+          transactionTemplate.executeWithoutResult(status -> {
+            journalEntity.setUserId(user.getId());
+            markChanged(journalEntity);
+            journalEntryRepository.save(journalEntity);
+          });
+          backfilled++;
+        }
+      }
+    }
+    for (JournalEntity orphan : journalEntryRepository.findByUserIdIsNullAndDeletedNot(true)) {
+      transactionTemplate.executeWithoutResult(status -> {
+        orphan.setDeleted(true);
+        markChanged(orphan);
+        journalEntryRepository.save(orphan);
+      });
+      backfilled++;
+    }
+    return backfilled;
+  }
+
+  /**
+   * Lower-cases tags, drops a leading {@code #}, joins words with {@code -} and removes
+   * {@code .} and {@code $}, which cannot appear in the counter document's field names.
+   * Duplicates and empty tags are dropped and at most {@link #MAX_TAGS} are kept.
+   */
+  static List<String> normalizeTags(List<String> tags) {
+    if (tags == null) {
+      return List.of();
+    }
+    Set<String> normalized = new LinkedHashSet<>();
+    for (String tag : tags) {
+      if (tag == null) {
+        continue;
+      }
+      String cleaned = tag.strip().replaceFirst("^#+", "")
+          .toLowerCase(Locale.ROOT)
+          .replaceAll("[.$]", "")
+          .replaceAll("\\s+", "-");
+      if (cleaned.length() > MAX_TAG_LENGTH) {
+        cleaned = cleaned.substring(0, MAX_TAG_LENGTH);
+      }
+      if (!cleaned.isEmpty() && normalized.size() < MAX_TAGS) {
+        normalized.add(cleaned);
+      }
+    }
+    return List.copyOf(normalized);
+  }
+
+  private void markChanged(JournalEntity journalEntity) {
+    journalEntity.setChangeSeq(changeSequence.next("journal_entries"));
+    journalEntity.setUpdatedAt(LocalDateTime.now());
   }
 
   public void deleteEntity(JournalEntity entity) {
@@ -57,4 +303,12 @@ public class JournalEntryService {
   public void deleteAllEntities() {
     journalEntryRepository.deleteAll();
   }
+
+  /**
+   * A page of changes. {@code retryAfterSeconds} is {@code 0} unless newer changes were held back
+   * because they have not settled yet.
+   */
+  public record ChangePage(List<JournalEntity> changes, long nextToken, boolean hasMore,
+      long retryAfterSeconds) {
+  }
 }
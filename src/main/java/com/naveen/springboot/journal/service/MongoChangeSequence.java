@@ -0,0 +1,42 @@
+package com.naveen.springboot.journal.service;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Updates;
+import java.time.Duration;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Monotonically increasing counters kept in the {@code counters} collection. The increment goes
+ * through the database factory rather than the template so it never joins a surrounding
+ * transaction: concurrent writers would otherwise conflict on the counter document. A rolled
+ * back transaction just leaves a gap in the sequence.
+ */
+@Component
+@Profile("!embedded")
+public class MongoChangeSequence implements ChangeSequence {
+
+  private static final String COLLECTION = "counters";
+
+  @Autowired
+  private MongoDatabaseFactory mongoDatabaseFactory;
+
+  @Value("${journal.sync.commit-deadline:8s}")
+  private Duration commitDeadline = Duration.ofSeconds(8);
+
+  @Override
+  public long reserve(String name, int count) {
+    CommitDeadline.start(commitDeadline);
+    Document counter = mongoDatabaseFactory.getMongoDatabase()
+        .getCollection(COLLECTION)
+        .findOneAndUpdate(Filters.eq("_id", name), Updates.inc("seq", (long) count),
+            new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER));
+    return counter.getLong("seq");
+  }
+}
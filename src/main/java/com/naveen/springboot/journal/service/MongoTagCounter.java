@@ -0,0 +1,111 @@
+package com.naveen.springboot.journal.service;
+
+import com.naveen.springboot.journal.entity.JournalEntity;
+import com.naveen.springboot.journal.entity.TagCounts;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Maintains the {@code tag_counts} document of each user. Saves and deletes apply the difference
+ * between an entry's old and new tags with {@code $inc}, inside the caller's transaction when
+ * there is one, so the counts move together with the entries.
+ */
+@Component
+@Profile("!embedded")
+public class MongoTagCounter implements TagCounter {
+
+  private static final String COUNTS = "counts";
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  /**
+   * Adjusts the user's counts for an entry whose tags changed from {@code before} to
+   * {@code after}. Tags whose count drops to zero are removed from the document; each removal
+   * is conditional on the count still being zero, so an increment that lands in between is kept.
+   */
+  @Override
+  public void apply(ObjectId userId, Collection<String> before, Collection<String> after) {
+    Set<String> removed = new HashSet<>(before == null ? List.of() : before);
+    Set<String> added = new HashSet<>(after == null ? List.of() : after);
+    Set<String> kept = new HashSet<>(removed);
+    kept.retainAll(added);
+    removed.removeAll(kept);
+    added.removeAll(kept);
+    if (removed.isEmpty() && added.isEmpty()) {
+      return;
+    }
+
+    Update update = new Update();
+    added.forEach(tag -> update.inc(COUNTS + "." + tag, 1L));
+    removed.forEach(tag -> update.inc(COUNTS + "." + tag, -1L));
+    TagCounts counts = mongoTemplate.findAndModify(byUser(userId), update,
+        FindAndModifyOptions.options().upsert(true).returnNew(true), TagCounts.class);
+    if (removed.isEmpty() || counts == null || counts.getCounts() == null) {
+      return;
+    }
+    for (String tag : removed) {
+      if (counts.getCounts().getOrDefault(tag, 0L) <= 0) {
+        String field = COUNTS + "." + tag;
+        mongoTemplate.updateFirst(Query.query(where("_id").is(userId).and(field).lte(0)),
+            new Update().unset(field), TagCounts.class);
+      }
+    }
+  }
+
+  /**
+   * The user's tags with their entry counts, most used first.
+   */
+  @Override
+  public List<TagCount> counts(ObjectId userId, int limit) {
+    TagCounts counts = mongoTemplate.findOne(byUser(userId), TagCounts.class);
+    if (counts == null || counts.getCounts() == null) {
+      return List.of();
+    }
+    return counts.getCounts().entrySet().stream()
+        .filter(count -> count.getValue() > 0)
+        .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+            .thenComparing(Map.Entry.comparingByKey()))
+        .limit(limit)
+        .map(count -> new TagCount(count.getKey(), count.getValue()))
+        .toList();
+  }
+
+  /**
+   * Recomputes the user's counts from their entries, for when entries were written without
+   * going through the save path, e.g. by a snapshot restore.
+   */
+  @Override
+  public void rebuild(ObjectId userId) {
+    Aggregation aggregation = Aggregation.newAggregation(
+        Aggregation.match(where("userId").is(userId).and("deleted").ne(true)),
+        Aggregation.unwind("tags"),
+        Aggregation.group("tags").count().as("count"));
+    Map<String, Long> counts = new LinkedHashMap<>();
+    for (Document tag : mongoTemplate.aggregate(aggregation, JournalEntity.class, Document.class)) {
+      counts.put(tag.getString("_id"), ((Number) tag.get("count")).longValue());
+    }
+    mongoTemplate.upsert(byUser(userId), Update.update(COUNTS, counts), TagCounts.class);
+  }
+
+  private static Query byUser(ObjectId userId) {
+    return Query.query(where("_id").is(userId));
+  }
+}
@@ -0,0 +1,245 @@
+package com.naveen.springboot.journal.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+
+/**
+ * Helpers for turning Mongo commands into query shapes, reading explain output and deriving
+ * index suggestions from both.
+ */
+public final class QueryShapes {
+
+  public static final Set<String> TRACKED_COMMANDS =
+      Set.of("find", "aggregate", "count", "distinct", "update", "delete", "findAndModify");
+
+  // Session, transaction and cursor plumbing that does not change which plan is chosen
+  private static final Set<String> IGNORED_KEYS = Set.of("$db", "lsid", "$clusterTime",
+      "txnNumber", "autocommit", "startTransaction", "readConcern", "writeConcern",
+      "$readPreference", "batchSize", "singleBatch", "cursor", "ordered", "maxTimeMS", "comment",
+      "apiVersion", "apiStrict", "apiDeprecationErrors", "bypassDocumentValidation");
+
+  private static final Set<String> STATEMENT_KEYS = Set.of("updates", "deletes");
+
+  // Values under these keys describe the shape itself (field directions, grouping) and are kept
+  private static final Set<String> PRESERVED_KEYS =
+      Set.of("sort", "$sort", "projection", "$project", "hint", "key", "fields");
+
+  // Arrays under these keys hold clauses or statements rather than values and keep one normalized
+  // element per item; every other array collapses to a single placeholder
+  private static final Set<String> STRUCTURAL_ARRAY_KEYS =
+      Set.of("pipeline", "$and", "$or", "$nor", "updates", "deletes");
+
+  private static final Set<String> RANGE_OPERATORS =
+      Set.of("$gt", "$gte", "$lt", "$lte", "$ne", "$nin", "$exists", "$regex", "$not");
+
+  private static final BsonString PLACEHOLDER = new BsonString("?");
+
+  private QueryShapes() {
+  }
+
+  /**
+   * Returns the command with every literal replaced by {@code "?"}, keeping field names,
+   * operators, sort and projection specs.
+   */
+  public static BsonDocument normalize(BsonDocument command) {
+    BsonDocument shape = normalizeDocument(command, true);
+    firstStatementOnly(shape);
+    return shape;
+  }
+
+  /**
+   * Returns the command stripped of session and cursor fields so it can be wrapped in
+   * {@code explain}. Multi-statement updates and deletes keep their first statement only.
+   */
+  public static BsonDocument explainable(BsonDocument command) {
+    BsonDocument result = new BsonDocument();
+    for (Map.Entry<String, BsonValue> entry : command.entrySet()) {
+      if (!IGNORED_KEYS.contains(entry.getKey())) {
+        result.append(entry.getKey(), entry.getValue());
+      }
+    }
+    firstStatementOnly(result);
+    return result;
+  }
+
+  /**
+   * Collects the stage names of every winning plan in an explain result, e.g.
+   * {@code [FETCH, IXSCAN]} or {@code [COLLSCAN]}.
+   */
+  public static List<String> planStages(BsonDocument explain) {
+    List<String> stages = new ArrayList<>();
+    collectWinningPlans(explain, stages);
+    return stages;
+  }
+
+  /**
+   * Suggests an index for the filter and sort of a command, ordered equality fields first, then
+   * sort fields, then range fields. Returns {@code null} when the command has no filter or sort.
+   */
+  public static BsonDocument suggestIndex(BsonDocument command) {
+    BsonDocument filter = null;
+    BsonDocument sort = null;
+    if (command.isDocument("filter")) {
+      filter = command.getDocument("filter");
+    } else if (command.isDocument("query")) {
+      filter = command.getDocument("query");
+    } else if (command.isArray("updates") || command.isArray("deletes")) {
+      BsonArray statements = command.isArray("updates")
+          ? command.getArray("updates") : command.getArray("deletes");
+      if (!statements.isEmpty() && statements.get(0).asDocument().isDocument("q")) {
+        filter = statements.get(0).asDocument().getDocument("q");
+      }
+    } else if (command.isArray("pipeline")) {
+      for (BsonValue stage : command.getArray("pipeline")) {
+        BsonDocument stageDocument = stage.asDocument();
+        if (filter == null && stageDocument.isDocument("$match")) {
+          filter = stageDocument.getDocument("$match");
+        } else if (sort == null && stageDocument.isDocument("$sort")) {
+          sort = stageDocument.getDocument("$sort");
+        }
+      }
+    }
+    if (command.isDocument("sort")) {
+      sort = command.getDocument("sort");
+    }
+
+    Set<String> equality = new LinkedHashSet<>();
+    Set<String> range = new LinkedHashSet<>();
+    if (filter != null) {
+      classifyFilter(filter, equality, range);
+    }
+    BsonDocument index = new BsonDocument();
+    equality.forEach(field -> index.append(field, new BsonInt32(1)));
+    if (sort != null) {
+      sort.forEach((field, direction) -> {
+        if (!index.containsKey(field)) {
+          index.append(field, direction);
+        }
+      });
+    }
+    range.stream()
+        .filter(field -> !index.containsKey(field))
+        .forEach(field -> index.append(field, new BsonInt32(1)));
+    return index.isEmpty() ? null : index;
+  }
+
+  private static void classifyFilter(BsonDocument filter, Set<String> equality,
+      Set<String> range) {
+    for (Map.Entry<String, BsonValue> entry : filter.entrySet()) {
+      String key = entry.getKey();
+      BsonValue value = entry.getValue();
+      if (key.equals("$and") && value.isArray()) {
+        for (BsonValue clause : value.asArray()) {
+          if (clause.isDocument()) {
+            classifyFilter(clause.asDocument(), equality, range);
+          }
+        }
+      } else if (key.startsWith("$")) {
+        // $or, $expr, $text and friends need their own index analysis
+        continue;
+      } else if (value.isDocument() && isOperatorDocument(value.asDocument())) {
+        BsonDocument operators = value.asDocument();
+        if (operators.keySet().stream().anyMatch(RANGE_OPERATORS::contains)) {
+          range.add(key);
+        } else {
+          equality.add(key);
+        }
+      } else {
+        equality.add(key);
+      }
+    }
+  }
+
+  private static void firstStatementOnly(BsonDocument command) {
+    for (String statements : STATEMENT_KEYS) {
+      if (command.isArray(statements) && command.getArray(statements).size() > 1) {
+        command.put(statements, new BsonArray(List.of(command.getArray(statements).get(0))));
+      }
+    }
+  }
+
+  private static boolean isOperatorDocument(BsonDocument document) {
+    return !document.isEmpty() && document.getFirstKey().startsWith("$");
+  }
+
+  private static void collectWinningPlans(BsonValue value, List<String> stages) {
+    if (value.isDocument()) {
+      for (Map.Entry<String, BsonValue> entry : value.asDocument().entrySet()) {
+        if (entry.getKey().equals("winningPlan") && entry.getValue().isDocument()) {
+          collectStages(entry.getValue().asDocument(), stages);
+        } else {
+          collectWinningPlans(entry.getValue(), stages);
+        }
+      }
+    } else if (value.isArray()) {
+      for (BsonValue element : value.asArray()) {
+        collectWinningPlans(element, stages);
+      }
+    }
+  }
+
+  private static void collectStages(BsonDocument plan, List<String> stages) {
+    // Slot-based engine plans nest the classic tree under queryPlan
+    if (plan.isDocument("queryPlan")) {
+      collectStages(plan.getDocument("queryPlan"), stages);
+      return;
+    }
+    if (plan.isString("stage")) {
+      stages.add(plan.getString("stage").getValue());
+    }
+    if (plan.isDocument("inputStage")) {
+      collectStages(plan.getDocument("inputStage"), stages);
+    }
+    if (plan.isArray("inputStages")) {
+      for (BsonValue input : plan.getArray("inputStages")) {
+        collectStages(input.asDocument(), stages);
+      }
+    }
+  }
+
+  private static BsonDocument normalizeDocument(BsonDocument document, boolean topLevel) {
+    BsonDocument result = new BsonDocument();
+    for (Map.Entry<String, BsonValue> entry : document.entrySet()) {
+      String key = entry.getKey();
+      if (topLevel && IGNORED_KEYS.contains(key)) {
+        continue;
+      }
+      if (PRESERVED_KEYS.contains(key)) {
+        result.append(key, entry.getValue());
+      } else if (topLevel && TRACKED_COMMANDS.contains(key)) {
+        // The collection name
+        result.append(key, entry.getValue());
+      } else {
+        result.append(key, normalizeValue(key, entry.getValue()));
+      }
+    }
+    return result;
+  }
+
+  private static BsonValue normalizeValue(String key, BsonValue value) {
+    if (value.isDocument()) {
+      return normalizeDocument(value.asDocument(), false);
+    }
+    if (value.isArray()) {
+      // Literal lists such as $in operands or a user's journalEntries references would otherwise
+      // give every length its own shape
+      if (!STRUCTURAL_ARRAY_KEYS.contains(key)) {
+        return new BsonArray(List.of(PLACEHOLDER));
+      }
+      BsonArray result = new BsonArray();
+      for (BsonValue element : value.asArray()) {
+        result.add(normalizeValue(key, element));
+      }
+      return result;
+    }
+    return PLACEHOLDER;
+  }
+}
@@ -0,0 +1,138 @@
+package com.naveen.springboot.journal.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key into a single load. The first caller runs the
+ * loader, callers arriving while it is in flight wait for and share its result or exception.
+ * Nothing is kept once the call completes, so this removes duplicate concurrent work only and
+ * is not a cache.
+ *
+ * <p>Results are handed to every waiter as the same instance, so callers must treat them as
+ * read-only. A waiter that is interrupted stops waiting without affecting the shared call. The
+ * leader runs the loader on its own thread, so when the leader is interrupted (for example by a
+ * bulkhead timing it out) the failure is its own: waiters do not inherit it and instead retry,
+ * one of them taking over the load.
+ */
+public class SingleFlight<K, V> implements MeterBinder {
+
+  private final String name;
+  private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+  private final LongAdder calls = new LongAdder();
+  private final LongAdder saved = new LongAdder();
+
+  public SingleFlight(String name) {
+    this.name = name;
+  }
+
+  public V execute(K key, Supplier<V> loader) {
+    calls.increment();
+    if (key == null) {
+      return loader.get();
+    }
+    boolean joined = false;
+    while (true) {
+      CompletableFuture<V> call = new CompletableFuture<>();
+      CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+      if (existing == null) {
+        return load(key, call, loader);
+      }
+      if (!joined) {
+        saved.increment();
+        joined = true;
+      }
+      try {
+        return await(existing);
+      } catch (LeaderInterrupted e) {
+        // The leader gave up because its own thread was interrupted, try again
+      }
+    }
+  }
+
+  private V load(K key, CompletableFuture<V> call, Supplier<V> loader) {
+    try {
+      V value = loader.get();
+      call.complete(value);
+      return value;
+    } catch (RuntimeException | Error e) {
+      call.completeExceptionally(isInterrupted(e) ? new LeaderInterrupted() : e);
+      throw e;
+    } finally {
+      inFlight.remove(key, call);
+    }
+  }
+
+  private static boolean isInterrupted(Throwable e) {
+    if (Thread.currentThread().isInterrupted()) {
+      return true;
+    }
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof InterruptedException || cause instanceof InterruptedIOException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private V await(CompletableFuture<V> call) {
+    try {
+      return call.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while waiting for in-flight " + name, e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      if (cause instanceof Error error) {
+        throw error;
+      }
+      throw new RuntimeException(cause);
+    }
+  }
+
+  private static final class LeaderInterrupted extends RuntimeException {
+
+    LeaderInterrupted() {
+      super("Leader of in-flight call was interrupted", null, false, false);
+    }
+  }
+
+  public long getCalls() {
+    return calls.sum();
+  }
+
+  public long getSaved() {
+    return saved.sum();
+  }
+
+  public int getInFlight() {
+    return inFlight.size();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("journal.singleflight.calls", this, SingleFlight::getCalls)
+        .tag("name", name)
+        .description("Lookups that went through request coalescing")
+        .register(registry);
+    FunctionCounter.builder("journal.singleflight.saved", this, SingleFlight::getSaved)
+        .tag("name", name)
+        .description("Lookups served by joining a call already in flight")
+        .register(registry);
+    Gauge.builder("journal.singleflight.inflight", this, SingleFlight::getInFlight)
+        .tag("name", name)
+        .description("Distinct keys currently being loaded")
+        .register(registry);
+  }
+}
@@ -0,0 +1,199 @@
+package com.naveen.springboot.journal.service;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Mongo command listener that records commands slower than a threshold by query shape. The
+ * first time a shape turns up, an {@code explain} runs on a background thread and its winning
+ * plan is checked for collection scans and in-memory sorts, which produce an index suggestion.
+ *
+ * <p>Started commands have to be copied before the driver releases their buffers, but only what
+ * decides their shape is kept: session and cursor fields are dropped, multi-statement writes keep
+ * their first statement and update documents are reduced to their shape, so saving an entry does
+ * not copy the entry. A sampled fraction is tracked and the number of shapes kept is capped.
+ */
+public class SlowQueryMonitor implements CommandListener, DisposableBean {
+
+  private final ObjectProvider<MongoClient> mongoClient;
+  private final long thresholdNanos;
+  private final double sampleRate;
+  private final int maxShapes;
+  private final ConcurrentHashMap<Integer, Started> started = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+  private final ThreadPoolExecutor explainExecutor = new ThreadPoolExecutor(1, 1, 0,
+      TimeUnit.SECONDS, new ArrayBlockingQueue<>(100),
+      new CustomizableThreadFactory("journal-explain-"), new ThreadPoolExecutor.DiscardPolicy());
+
+  public SlowQueryMonitor(ObjectProvider<MongoClient> mongoClient, Duration threshold,
+      double sampleRate, int maxShapes) {
+    this.mongoClient = mongoClient;
+    this.thresholdNanos = threshold.toNanos();
+    this.sampleRate = sampleRate;
+    this.maxShapes = maxShapes;
+  }
+
+  @Override
+  public void commandStarted(CommandStartedEvent event) {
+    if (!QueryShapes.TRACKED_COMMANDS.contains(event.getCommandName())
+        || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+      return;
+    }
+    RawBsonDocument command = new RawBsonDocument(shapeFields(event.getCommand()),
+        new BsonDocumentCodec());
+    started.put(event.getRequestId(), new Started(event.getDatabaseName(), command));
+  }
+
+  private static BsonDocument shapeFields(BsonDocument command) {
+    BsonDocument trimmed = QueryShapes.explainable(command);
+    if (trimmed.isArray("updates") && !trimmed.getArray("updates").isEmpty()
+        && trimmed.getArray("updates").get(0).isDocument()) {
+      BsonDocument statement = new BsonDocument();
+      for (Map.Entry<String, BsonValue> field
+          : trimmed.getArray("updates").get(0).asDocument().entrySet()) {
+        // The plan depends on q, not on the values being written
+        statement.append(field.getKey(), field.getKey().equals("u") && field.getValue().isDocument()
+            ? QueryShapes.normalize(field.getValue().asDocument()) : field.getValue());
+      }
+      trimmed.put("updates", new BsonArray(List.of(statement)));
+    }
+    return trimmed;
+  }
+
+  @Override
+  public void commandSucceeded(CommandSucceededEvent event) {
+    completed(event.getRequestId(), event.getCommandName(),
+        event.getElapsedTime(TimeUnit.NANOSECONDS));
+  }
+
+  @Override
+  public void commandFailed(CommandFailedEvent event) {
+    completed(event.getRequestId(), event.getCommandName(),
+        event.getElapsedTime(TimeUnit.NANOSECONDS));
+  }
+
+  private void completed(int requestId, String commandName, long elapsedNanos) {
+    Started command = started.remove(requestId);
+    if (command == null || elapsedNanos < thresholdNanos) {
+      return;
+    }
+    BsonDocument decoded = command.command().decode(new BsonDocumentCodec());
+    BsonDocument shape = QueryShapes.normalize(decoded);
+    // Database-level aggregations carry {aggregate: 1} instead of a collection name
+    String collection = decoded.get(commandName).isString()
+        ? decoded.getString(commandName).getValue() : "$cmd";
+    String namespace = command.database() + "." + collection;
+    String key = namespace + " " + shape.toJson();
+    ShapeStats stats = shapes.get(key);
+    if (stats == null) {
+      if (shapes.size() >= maxShapes) {
+        return;
+      }
+      ShapeStats created = new ShapeStats(namespace, commandName, shape,
+          QueryShapes.suggestIndex(decoded));
+      stats = shapes.putIfAbsent(key, created);
+      if (stats == null) {
+        stats = created;
+        ShapeStats explained = created;
+        explainExecutor.execute(() -> explain(command.database(), decoded, explained));
+      }
+    }
+    stats.record(elapsedNanos);
+  }
+
+  private void explain(String database, BsonDocument command, ShapeStats stats) {
+    try {
+      BsonDocument explainCommand = new BsonDocument("explain", QueryShapes.explainable(command))
+          .append("verbosity", new BsonString("queryPlanner"));
+      BsonDocument result = mongoClient.getObject().getDatabase(database)
+          .runCommand(explainCommand, BsonDocument.class);
+      stats.plan = QueryShapes.planStages(result);
+    } catch (RuntimeException e) {
+      stats.plan = List.of("EXPLAIN_FAILED: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Shapes ordered by total time spent above the threshold, slowest first.
+   */
+  public List<SlowQueryShape> topShapes(int limit) {
+    return shapes.values().stream()
+        .map(ShapeStats::snapshot)
+        .sorted(Comparator.comparingDouble(SlowQueryShape::totalMillis).reversed())
+        .limit(limit)
+        .toList();
+  }
+
+  public void reset() {
+    shapes.clear();
+  }
+
+  @Override
+  public void destroy() {
+    explainExecutor.shutdownNow();
+  }
+
+  private record Started(String database, RawBsonDocument command) {
+  }
+
+  private static class ShapeStats {
+
+    private final String namespace;
+    private final String command;
+    private final BsonDocument shape;
+    private final BsonDocument candidateIndex;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private volatile List<String> plan;
+
+    ShapeStats(String namespace, String command, BsonDocument shape, BsonDocument candidateIndex) {
+      this.namespace = namespace;
+      this.command = command;
+      this.shape = shape;
+      this.candidateIndex = candidateIndex;
+    }
+
+    void record(long elapsedNanos) {
+      count.increment();
+      totalNanos.add(elapsedNanos);
+      maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+    }
+
+    SlowQueryShape snapshot() {
+      List<String> stages = plan;
+      boolean needsIndex = stages != null
+          && (stages.contains("COLLSCAN") || stages.contains("SORT"));
+      return new SlowQueryShape(namespace, command, shape.toJson(), count.sum(),
+          totalNanos.sum() / 1_000_000.0, maxNanos.get() / 1_000_000.0, stages,
+          needsIndex && candidateIndex != null ? candidateIndex.toJson() : null);
+    }
+  }
+
+  public record SlowQueryShape(String namespace, String command, String shape, long count,
+      double totalMillis, double maxMillis, List<String> plan, String suggestedIndex) {
+  }
+}
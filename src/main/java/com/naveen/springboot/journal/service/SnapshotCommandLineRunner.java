@@ -0,0 +1,58 @@
+package com.naveen.springboot.journal.service;
+
+import java.nio.file.Path;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs a snapshot or restore from the command line and exits, e.g.
+ *
+ * <pre>
+ * java -jar journal.jar --spring.main.web-application-type=none \
+ *     --journal.snapshot.command=snapshot --journal.snapshot.user=alice \
+ *     --journal.snapshot.file=/backups/alice.jsnp
+ * </pre>
+ *
+ * <p>{@code restore} takes only {@code journal.snapshot.file}. On success the context is closed so
+ * the JVM exits with status 0; a failure is thrown, which fails startup with a non-zero status.
+ */
+@Slf4j
+@Component
+@Profile("!embedded")
+@ConditionalOnProperty(name = "journal.snapshot.command")
+public class SnapshotCommandLineRunner implements ApplicationRunner {
+
+  @Autowired
+  private SnapshotService snapshotService;
+
+  @Autowired
+  private ConfigurableApplicationContext context;
+
+  @Value("${journal.snapshot.command}")
+  private String command;
+
+  @Value("${journal.snapshot.user:}")
+  private String userName;
+
+  @Value("${journal.snapshot.file}")
+  private Path file;
+
+  @Override
+  public void run(ApplicationArguments args) throws Exception {
+    SnapshotService.SnapshotResult result = switch (command) {
+      case "snapshot" -> snapshotService.snapshot(userName, file);
+      case "restore" -> snapshotService.restore(file);
+      default -> throw new IllegalArgumentException("Unknown snapshot command: " + command);
+    };
+    log.info("Snapshot {} complete: {}", command, result);
+    SpringApplication.exit(context);
+  }
+}
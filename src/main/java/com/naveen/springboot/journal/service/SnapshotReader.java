@@ -0,0 +1,121 @@
+package com.naveen.springboot.journal.service;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Streams the records of a file written by {@link SnapshotWriter}, verifying each checksum and
+ * the closing record counts.
+ */
+public class SnapshotReader implements Closeable {
+
+  // Largest BSON document MongoDB accepts, plus headroom for the size prefix
+  private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024 + 1024;
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(SnapshotWriter.BUFFER_BYTES);
+  private final CRC32C crc = new CRC32C();
+  private final long createdAt;
+  private long users;
+  private long entries;
+  private boolean finished;
+
+  public SnapshotReader(Path file) throws IOException {
+    channel = FileChannel.open(file, StandardOpenOption.READ);
+    buffer.flip();
+    require(SnapshotWriter.HEADER_BYTES);
+    if (buffer.getInt() != SnapshotWriter.MAGIC) {
+      throw new IOException("Not a journal snapshot: " + file);
+    }
+    short version = buffer.getShort();
+    if (version != SnapshotWriter.VERSION) {
+      throw new IOException("Unsupported snapshot version " + version);
+    }
+    createdAt = buffer.getLong();
+  }
+
+  /**
+   * Returns the next user or entry record, or {@code null} once the closing record has been read
+   * and matched against the counts seen.
+   */
+  public Record next() throws IOException {
+    if (finished) {
+      return null;
+    }
+    require(SnapshotWriter.RECORD_HEADER_BYTES);
+    byte type = buffer.get();
+    int length = buffer.getInt();
+    int checksum = buffer.getInt();
+    if (length < 0 || length > MAX_RECORD_BYTES) {
+      throw new IOException("Corrupt snapshot record length " + length);
+    }
+    byte[] payload = new byte[length];
+    int read = 0;
+    while (read < length) {
+      if (!buffer.hasRemaining()) {
+        require(1);
+      }
+      int chunk = Math.min(buffer.remaining(), length - read);
+      buffer.get(payload, read, chunk);
+      read += chunk;
+    }
+    crc.reset();
+    crc.update(payload);
+    if ((int) crc.getValue() != checksum) {
+      throw new IOException("Snapshot checksum mismatch in record " + (users + entries + 1));
+    }
+    switch (type) {
+      case SnapshotWriter.USER -> users++;
+      case SnapshotWriter.ENTRY -> entries++;
+      case SnapshotWriter.END -> {
+        ByteBuffer counts = ByteBuffer.wrap(payload);
+        if (counts.getLong() != users || counts.getLong() != entries) {
+          throw new IOException("Snapshot record counts do not match its trailer");
+        }
+        finished = true;
+        return null;
+      }
+      default -> throw new IOException("Unknown snapshot record type " + type);
+    }
+    return new Record(type, payload);
+  }
+
+  public long getCreatedAt() {
+    return createdAt;
+  }
+
+  public long getUsers() {
+    return users;
+  }
+
+  public long getEntries() {
+    return entries;
+  }
+
+  private void require(int bytes) throws IOException {
+    if (buffer.remaining() >= bytes) {
+      return;
+    }
+    buffer.compact();
+    while (buffer.position() < bytes) {
+      if (channel.read(buffer) < 0) {
+        throw new EOFException("Snapshot is truncated");
+      }
+    }
+    buffer.flip();
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  public record Record(byte type, byte[] payload) {
+  }
+}
@@ -0,0 +1,278 @@
+package com.naveen.springboot.journal.service;
+
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.naveen.springboot.journal.entity.JournalEntity;
+import com.naveen.springboot.journal.entity.User;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.bson.BsonArray;
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonInt64;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Per-user backup and restore. A snapshot holds the user document and every journal entry it
+ * references, read under one snapshot session so they are consistent with each other. Documents
+ * are copied as raw BSON in batches, so neither direction maps entities or holds the whole
+ * journal in memory.
+ */
+@Component
+@Profile("!embedded")
+public class SnapshotService {
+
+  private static final int BATCH_SIZE = 500;
+  private static final String FILE_SUFFIX = ".jsnp";
+  private static final DateTimeFormatter FILE_TIMESTAMP =
+      DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Autowired
+  private MongoDatabaseFactory mongoDatabaseFactory;
+
+  @Autowired
+  private ChangeSequence changeSequence;
+
+  @Autowired
+  private TagCounter tagCounter;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Autowired
+  private AttachmentService attachmentService;
+
+  @Value("${journal.snapshot.directory:snapshots}")
+  private Path directory;
+
+  public SnapshotResult snapshot(String userName) throws IOException {
+    Files.createDirectories(directory);
+    String fileName = userName + "-" + LocalDateTime.now().format(FILE_TIMESTAMP) + FILE_SUFFIX;
+    return snapshot(userName, resolve(fileName));
+  }
+
+  public SnapshotResult snapshot(String userName, Path file) throws IOException {
+    Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+    Files.deleteIfExists(temp);
+    ClientSessionOptions options = ClientSessionOptions.builder().snapshot(true).build();
+    SnapshotResult result;
+    try (ClientSession session = mongoDatabaseFactory.getSession(options);
+        SnapshotWriter writer = new SnapshotWriter(temp)) {
+      RawBsonDocument user = rawCollection(User.class)
+          .find(session, Filters.eq("userName", userName))
+          .first();
+      if (user == null) {
+        throw new IllegalArgumentException("User not found: " + userName);
+      }
+      writer.writeUser(user.getByteBuffer().asNIO());
+
+      MongoCollection<RawBsonDocument> entries = rawCollection(JournalEntity.class);
+      List<BsonValue> batch = new ArrayList<>(BATCH_SIZE);
+      BsonArray refs = user.containsKey("journalEntries")
+          ? user.getArray("journalEntries") : new BsonArray();
+      for (BsonValue ref : refs) {
+        batch.add(ref.asDocument().get("$id"));
+        if (batch.size() == BATCH_SIZE) {
+          copyEntries(session, entries, batch, writer);
+        }
+      }
+      copyEntries(session, entries, batch, writer);
+      writer.finish();
+      result = new SnapshotResult(file.getFileName().toString(), writer.getUsers(),
+          writer.getEntries(), writer.getBytesWritten());
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(temp);
+      throw e;
+    }
+    Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    return result;
+  }
+
+  /**
+   * Upserts the entries of a snapshot in bulk batches and then the user document, so the user
+   * only points at the restored entries once they are all in place. Restored entries get fresh
+   * change sequence numbers, drawn and written one batch per transaction, so sync clients pick
+   * them up, and the user's tag counts are rebuilt.
+   * Entries of the user that are not in the snapshot, i.e. created after it, are tombstoned the
+   * way a delete does, so tag queries, tag counts and the sync feed agree with the restored
+   * user. Only their ids are kept in memory while restoring.
+   */
+  public SnapshotResult restore(Path file) throws IOException {
+    MongoCollection<RawBsonDocument> users = rawCollection(User.class);
+    RawBsonDocument user = null;
+    Set<BsonValue> restored = new HashSet<>();
+    List<ReplaceOneModel<RawBsonDocument>> batch = new ArrayList<>(BATCH_SIZE);
+    try (SnapshotReader reader = new SnapshotReader(file)) {
+      SnapshotReader.Record record;
+      while ((record = reader.next()) != null) {
+        RawBsonDocument document = new RawBsonDocument(record.payload());
+        if (record.type() == SnapshotWriter.USER) {
+          if (user != null) {
+            throw new IOException("Snapshot contains more than one user");
+          }
+          user = document;
+          continue;
+        }
+        restored.add(document.get("_id"));
+        batch.add(upsert(document));
+        if (batch.size() == BATCH_SIZE) {
+          flush(batch);
+        }
+      }
+      if (user == null) {
+        throw new IOException("Snapshot does not contain a user");
+      }
+      flush(batch);
+      users.replaceOne(Filters.eq("_id", user.get("_id")), user,
+          new ReplaceOptions().upsert(true));
+      ObjectId userId = user.getObjectId("_id").getValue();
+      tombstoneNewerEntries(userId, restored);
+      // Restored entries bypass the save path, so recount the user's tags from scratch
+      tagCounter.rebuild(userId);
+      return new SnapshotResult(file.getFileName().toString(), reader.getUsers(),
+          reader.getEntries(), Files.size(file));
+    }
+  }
+
+  /**
+   * Resolves a snapshot file name inside the snapshot directory, rejecting names that would
+   * escape it.
+   */
+  public Path resolve(String fileName) {
+    Path base = directory.toAbsolutePath().normalize();
+    Path file = base.resolve(fileName).normalize();
+    if (!file.getParent().equals(base)) {
+      throw new IllegalArgumentException("Invalid snapshot file name: " + fileName);
+    }
+    return file;
+  }
+
+  private void copyEntries(ClientSession session, MongoCollection<RawBsonDocument> entries,
+      List<BsonValue> ids, SnapshotWriter writer) throws IOException {
+    if (ids.isEmpty()) {
+      return;
+    }
+    for (RawBsonDocument entry : entries.find(session, Filters.in("_id", ids))
+        .batchSize(BATCH_SIZE)) {
+      writer.writeEntry(entry.getByteBuffer().asNIO());
+    }
+    ids.clear();
+  }
+
+  private void flush(List<ReplaceOneModel<RawBsonDocument>> batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    // The collection is looked up inside the transaction so the writes join it
+    transactionTemplate.executeWithoutResult(
+        status -> write(rawCollection(JournalEntity.class), batch));
+    batch.clear();
+  }
+
+  private void write(MongoCollection<RawBsonDocument> collection,
+      List<ReplaceOneModel<RawBsonDocument>> batch) {
+    long changeSeq = changeSequence.reserve("journal_entries", batch.size()) - batch.size();
+    BsonDateTime updatedAt = new BsonDateTime(System.currentTimeMillis());
+    List<ReplaceOneModel<RawBsonDocument>> changed = new ArrayList<>(batch.size());
+    for (ReplaceOneModel<RawBsonDocument> model : batch) {
+      BsonDocument document = model.getReplacement().decode(new BsonDocumentCodec())
+          .append("changeSeq", new BsonInt64(++changeSeq))
+          .append("updatedAt", updatedAt);
+      changed.add(upsert(new RawBsonDocument(document, new BsonDocumentCodec())));
+    }
+    collection.bulkWrite(changed, new BulkWriteOptions().ordered(false));
+  }
+
+  private void tombstoneNewerEntries(ObjectId userId, Set<BsonValue> restored) {
+    MongoCollection<RawBsonDocument> entries = rawCollection(JournalEntity.class);
+    List<BsonValue> stale = new ArrayList<>();
+    for (RawBsonDocument entry : entries
+        .find(Filters.and(Filters.eq("userId", userId), Filters.ne("deleted", true)))
+        .projection(Projections.include("_id"))
+        .batchSize(BATCH_SIZE)) {
+      if (!restored.contains(entry.get("_id"))) {
+        stale.add(entry.get("_id"));
+      }
+    }
+    List<ObjectId> files = new ArrayList<>();
+    for (int from = 0; from < stale.size(); from += BATCH_SIZE) {
+      List<BsonValue> ids = stale.subList(from, Math.min(from + BATCH_SIZE, stale.size()));
+      transactionTemplate.executeWithoutResult(
+          status -> files.addAll(tombstone(rawCollection(JournalEntity.class), ids)));
+    }
+    if (!files.isEmpty()) {
+      attachmentService.deleteFiles(files);
+    }
+  }
+
+  private List<ObjectId> tombstone(MongoCollection<RawBsonDocument> collection,
+      List<BsonValue> ids) {
+    List<ObjectId> files = new ArrayList<>();
+    for (RawBsonDocument entry : collection.find(Filters.in("_id", ids))
+        .projection(Projections.include("attachments.fileId"))) {
+      if (entry.containsKey("attachments")) {
+        for (BsonValue attachment : entry.getArray("attachments")) {
+          files.add(attachment.asDocument().getObjectId("fileId").getValue());
+        }
+      }
+    }
+    long changeSeq = changeSequence.reserve("journal_entries", ids.size()) - ids.size();
+    BsonDateTime updatedAt = new BsonDateTime(System.currentTimeMillis());
+    List<UpdateOneModel<RawBsonDocument>> updates = new ArrayList<>(ids.size());
+    for (BsonValue id : ids) {
+      updates.add(new UpdateOneModel<>(Filters.eq("_id", id), Updates.combine(
+          Updates.set("deleted", true),
+          Updates.unset("title"),
+          Updates.unset("content"),
+          Updates.unset("tags"),
+          Updates.unset("enrichment"),
+          Updates.unset("attachments"),
+          Updates.set("changeSeq", ++changeSeq),
+          Updates.set("updatedAt", updatedAt))));
+    }
+    collection.bulkWrite(updates, new BulkWriteOptions().ordered(false));
+    return files;
+  }
+
+  private ReplaceOneModel<RawBsonDocument> upsert(RawBsonDocument document) {
+    return new ReplaceOneModel<>(Filters.eq("_id", document.get("_id")), document,
+        new ReplaceOptions().upsert(true));
+  }
+
+  private MongoCollection<RawBsonDocument> rawCollection(Class<?> entityClass) {
+    return mongoTemplate.getCollection(mongoTemplate.getCollectionName(entityClass))
+        .withDocumentClass(RawBsonDocument.class);
+  }
+
+  public record SnapshotResult(String file, long users, long entries, long bytes) {
+  }
+}
@@ -0,0 +1,106 @@
+package com.naveen.springboot.journal.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Writes a user snapshot file: a header ({@code JSNP} magic, version, creation time) followed by
+ * length-prefixed records of {@code type, length, crc32c, payload} and a closing record holding
+ * the record counts. Payloads are raw BSON documents. Records are staged in one reusable direct
+ * buffer, so memory use does not depend on the size of the journal.
+ */
+public class SnapshotWriter implements Closeable {
+
+  static final int MAGIC = 0x4A534E50;
+  static final short VERSION = 1;
+  static final int HEADER_BYTES = 4 + 2 + 8;
+  static final int RECORD_HEADER_BYTES = 1 + 4 + 4;
+  static final int BUFFER_BYTES = 1 << 20;
+
+  public static final byte USER = 1;
+  public static final byte ENTRY = 2;
+  static final byte END = 0x7F;
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+  private final CRC32C crc = new CRC32C();
+  private long users;
+  private long entries;
+  private long bytesWritten;
+
+  public SnapshotWriter(Path file) throws IOException {
+    channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    buffer.putInt(MAGIC).putShort(VERSION).putLong(System.currentTimeMillis());
+  }
+
+  public void writeUser(ByteBuffer bson) throws IOException {
+    writeRecord(USER, bson);
+    users++;
+  }
+
+  public void writeEntry(ByteBuffer bson) throws IOException {
+    writeRecord(ENTRY, bson);
+    entries++;
+  }
+
+  /**
+   * Writes the closing record and forces the file to disk. A file without it is rejected on
+   * restore as truncated.
+   */
+  public void finish() throws IOException {
+    ByteBuffer counts = ByteBuffer.allocate(16).putLong(users).putLong(entries).flip();
+    writeRecord(END, counts);
+    flush();
+    channel.force(true);
+  }
+
+  public long getUsers() {
+    return users;
+  }
+
+  public long getEntries() {
+    return entries;
+  }
+
+  public long getBytesWritten() {
+    return bytesWritten;
+  }
+
+  private void writeRecord(byte type, ByteBuffer payload) throws IOException {
+    int length = payload.remaining();
+    crc.reset();
+    crc.update(payload.duplicate());
+    if (buffer.remaining() < RECORD_HEADER_BYTES) {
+      flush();
+    }
+    buffer.put(type).putInt(length).putInt((int) crc.getValue());
+    if (length > buffer.remaining()) {
+      flush();
+    }
+    if (length > buffer.remaining()) {
+      while (payload.hasRemaining()) {
+        bytesWritten += channel.write(payload);
+      }
+    } else {
+      buffer.put(payload);
+    }
+  }
+
+  private void flush() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      bytesWritten += channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
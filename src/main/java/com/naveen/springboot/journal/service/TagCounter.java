@@ -0,0 +1,30 @@
+package com.naveen.springboot.journal.service;
+
+import java.util.Collection;
+import java.util.List;
+import org.bson.types.ObjectId;
+
+/**
+ * Per-user counts of how many live entries carry each tag.
+ */
+public interface TagCounter {
+
+  /**
+   * Adjusts the user's counts for an entry whose tags changed from {@code before} to
+   * {@code after}.
+   */
+  void apply(ObjectId userId, Collection<String> before, Collection<String> after);
+
+  /**
+   * The user's tags with their entry counts, most used first.
+   */
+  List<TagCount> counts(ObjectId userId, int limit);
+
+  /**
+   * Recomputes the user's counts from their entries.
+   */
+  void rebuild(ObjectId userId);
+
+  record TagCount(String tag, long count) {
+  }
+}
@@ -2,6 +2,7 @@ package com.naveen.springboot.journal.service;
 
 import com.naveen.springboot.journal.entity.User;
 import com.naveen.springboot.journal.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.List;
 import java.util.Optional;
 import org.bson.types.ObjectId;
@@ -14,6 +15,13 @@ public class UserService {
   @Autowired
   private UserRepository userRepository;
 
+  private final SingleFlight<String, User> userByName = new SingleFlight<>("user.findByUserName");
+
+  @Autowired
+  public void setMeterRegistry(MeterRegistry meterRegistry) {
+    userByName.bindTo(meterRegistry);
+  }
+
   public void saveUser(User user) {
     userRepository.save(user);
   }
@@ -30,7 +38,15 @@ public class UserService {
     userRepository.deleteById(id);
   }
 
+  /**
+   * Concurrent lookups of the same user share one query and one {@link User} instance, so the
+   * result must not be modified. Use {@link #findByUserNameForUpdate(String)} before saving.
+   */
   public User findByUserName(String userName) {
+    return userByName.execute(userName, () -> userRepository.findByUserName(userName));
+  }
+
+  public User findByUserNameForUpdate(String userName) {
     return userRepository.findByUserName(userName);
   }
 
@@ -0,0 +1,578 @@
+package com.naveen.springboot.journal.storage;
+
+import com.naveen.springboot.journal.storage.SegmentLog.Record;
+import com.naveen.springboot.journal.storage.SegmentLog.Write;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Key-value store for the {@code embedded} profile: one {@link SegmentLog} shared by all tables
+ * and a {@link MappedIndex} per table from id to the record's latest location.
+ *
+ * <p>Writes made inside a transaction of {@link EmbeddedTransactionManager} are buffered and
+ * appended as a single log batch on commit, so they become durable (and visible) together;
+ * outside a transaction each write commits on its own. A transaction also remembers what it read
+ * and its commit fails with {@link ConcurrencyFailureException} if another commit changed any of
+ * it in the meantime, as a Mongo write conflict would. Commit listeners run under the write lock
+ * in log order, which is what the repositories' in-memory secondary indexes hang off.
+ *
+ * <p>On open the indexes are checked against the log and the log is replayed from their last
+ * checkpoint, dropping a torn batch at the tail. If an index refers to data the log does not
+ * have, every index is rebuilt from the start of the log. A background task periodically
+ * checkpoints the indexes and compacts sealed segments whose live data has fallen below the
+ * threshold, copying surviving records forward before deleting the segment.
+ */
+public class EmbeddedStore implements Closeable {
+
+  public static final byte ENTRIES = 1;
+  public static final byte USERS = 2;
+
+  // "log" is the segment log here, so not Lombok's @Slf4j
+  private static final Logger logger = LoggerFactory.getLogger(EmbeddedStore.class);
+
+  private static final Map<Byte, String> TABLES = Map.of(ENTRIES, "entries", USERS, "users");
+  private static final int COMPACTION_BATCH_BYTES = 1 << 20;
+
+  private final Path directory;
+  private final SegmentLog log;
+  private final Map<Byte, MappedIndex> indexes = new HashMap<>();
+  private final Map<Byte, List<CommitListener>> listeners = new HashMap<>();
+  private final Map<Integer, Long> liveBytes = new HashMap<>();
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final double compactionThreshold;
+  private final ScheduledExecutorService maintenance;
+
+  public EmbeddedStore(Path directory, long segmentSize, boolean syncWrites,
+      Duration compactionInterval, double compactionThreshold) throws IOException {
+    if (segmentSize < 1024 || segmentSize > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Segment size must be between 1 KB and 2 GB");
+    }
+    this.directory = directory;
+    this.compactionThreshold = compactionThreshold;
+    this.log = new SegmentLog(directory, segmentSize, syncWrites);
+    for (Map.Entry<Byte, String> table : TABLES.entrySet()) {
+      listeners.put(table.getKey(), new CopyOnWriteArrayList<>());
+    }
+    recover();
+
+    if (compactionInterval != null && !compactionInterval.isZero()) {
+      AtomicInteger threads = new AtomicInteger();
+      maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "journal-compaction-" + threads.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+      long millis = compactionInterval.toMillis();
+      maintenance.scheduleWithFixedDelay(this::maintain, millis, millis, TimeUnit.MILLISECONDS);
+    } else {
+      maintenance = null;
+    }
+  }
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  public void addListener(byte table, CommitListener listener) {
+    listeners.get(table).add(listener);
+  }
+
+  /**
+   * The latest payload stored under the id, or {@code null}. Inside a transaction the
+   * transaction's own uncommitted writes are visible, and committed values read are validated
+   * again when it commits.
+   */
+  public byte[] get(byte table, ObjectId id) {
+    Batch batch = currentBatch();
+    if (batch != null) {
+      for (int i = batch.writes.size() - 1; i >= 0; i--) {
+        Write write = batch.writes.get(i);
+        if (write.table() == table && write.id().equals(id)) {
+          return write.op() == SegmentLog.PUT ? write.payload() : null;
+        }
+      }
+    }
+    lock.readLock().lock();
+    try {
+      long[] slot = index(table).get(id);
+      byte[] payload = slot == null ? null : log.read(slot[0], (int) slot[1]);
+      if (batch != null) {
+        batch.reads.putIfAbsent(new Key(table, id), new Read(slot == null ? 0 : slot[0], payload));
+      }
+      return payload;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public void put(byte table, ObjectId id, byte[] payload) {
+    submit(List.of(new Write(SegmentLog.PUT, table, id, payload)));
+  }
+
+  public void delete(byte table, ObjectId id) {
+    submit(List.of(new Write(SegmentLog.DELETE, table, id, null)));
+  }
+
+  public void deleteAll(byte table) {
+    List<Write> writes = new ArrayList<>();
+    lock.readLock().lock();
+    try {
+      index(table).forEach((id, location, length) ->
+          writes.add(new Write(SegmentLog.DELETE, table, id, null)));
+    } finally {
+      lock.readLock().unlock();
+    }
+    if (!writes.isEmpty()) {
+      submit(writes);
+    }
+  }
+
+  /**
+   * Calls {@code consumer} with every live record of the table, for building secondary indexes.
+   */
+  public void forEach(byte table, BiConsumer<ObjectId, byte[]> consumer) {
+    lock.readLock().lock();
+    try {
+      List<long[]> slots = new ArrayList<>();
+      List<ObjectId> ids = new ArrayList<>();
+      index(table).forEach((id, location, length) -> {
+        ids.add(id);
+        slots.add(new long[] {location, length});
+      });
+      for (int i = 0; i < ids.size(); i++) {
+        consumer.accept(ids.get(i), log.read(slots.get(i)[0], (int) slots.get(i)[1]));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public int size(byte table) {
+    lock.readLock().lock();
+    try {
+      return index(table).size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  Batch newBatch() {
+    return new Batch();
+  }
+
+  /**
+   * Appends the batch's writes to the log as one unit and applies them to the indexes.
+   *
+   * @throws ConcurrencyFailureException if a record the batch read has changed since
+   */
+  void commit(Batch batch) throws IOException {
+    if (batch.writes.isEmpty()) {
+      return;
+    }
+    lock.writeLock().lock();
+    try {
+      validateReads(batch);
+      long[] locations = log.append(batch.writes);
+      for (int i = 0; i < locations.length; i++) {
+        Write write = batch.writes.get(i);
+        apply(write.op(), write.table(), write.id(), locations[i], write.recordLength());
+      }
+      for (Write write : batch.writes) {
+        for (CommitListener listener : listeners.get(write.table())) {
+          listener.committed(write.id(),
+              write.op() == SegmentLog.PUT ? write.payload() : null);
+        }
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Flushes the log and records in every index that it is complete up to the log's end, so the
+   * next open only replays what comes after.
+   */
+  public void checkpoint() throws IOException {
+    lock.writeLock().lock();
+    try {
+      log.force();
+      long end = log.end();
+      for (MappedIndex index : indexes.values()) {
+        index.checkpoint(end);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Rewrites every sealed segment whose share of live bytes is below the threshold and returns
+   * how many were deleted.
+   */
+  public int compact() throws IOException {
+    List<Integer> candidates = new ArrayList<>();
+    lock.readLock().lock();
+    try {
+      for (int segment : log.sealedSegments()) {
+        long capacity = log.segmentLength(segment) - SegmentLog.SEGMENT_HEADER;
+        long live = liveBytes.getOrDefault(segment, 0L);
+        if (capacity <= 0 || (double) live / capacity < compactionThreshold) {
+          candidates.add(segment);
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    for (int segment : candidates) {
+      compact(segment);
+    }
+    return candidates.size();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (maintenance != null) {
+      maintenance.shutdownNow();
+      try {
+        maintenance.awaitTermination(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    lock.writeLock().lock();
+    try {
+      checkpoint();
+      for (MappedIndex index : indexes.values()) {
+        index.close();
+      }
+      log.close();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void submit(List<Write> writes) {
+    Batch batch = currentBatch();
+    if (batch != null) {
+      batch.writes.addAll(writes);
+      return;
+    }
+    Batch single = new Batch();
+    single.writes.addAll(writes);
+    try {
+      commit(single);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private Batch currentBatch() {
+    return (Batch) TransactionSynchronizationManager.getResource(this);
+  }
+
+  /**
+   * Compares what the batch read with the current index. A record moved by compaction has a new
+   * location but the same bytes and is not a conflict.
+   */
+  private void validateReads(Batch batch) throws IOException {
+    for (Map.Entry<Key, Read> read : batch.reads.entrySet()) {
+      Key key = read.getKey();
+      long[] slot = index(key.table()).get(key.id());
+      if ((slot == null ? 0 : slot[0]) == read.getValue().location()) {
+        continue;
+      }
+      byte[] current = slot == null ? null : log.read(slot[0], (int) slot[1]);
+      if (!Arrays.equals(current, read.getValue().payload())) {
+        throw new ConcurrencyFailureException("Write conflict on " + TABLES.get(key.table())
+            + " " + key.id() + ": it was changed by another transaction");
+      }
+    }
+  }
+
+  private MappedIndex index(byte table) {
+    MappedIndex index = indexes.get(table);
+    if (index == null) {
+      throw new IllegalArgumentException("Unknown table " + table);
+    }
+    return index;
+  }
+
+  private void apply(byte op, byte table, ObjectId id, long location, int length)
+      throws IOException {
+    MappedIndex index = indexes.get(table);
+    if (index == null) {
+      return;
+    }
+    long[] previous;
+    if (op == SegmentLog.PUT) {
+      previous = index.put(id, location, length);
+      liveBytes.merge(SegmentLog.segmentOf(location), (long) length, Long::sum);
+    } else {
+      previous = index.remove(id);
+    }
+    if (previous != null) {
+      liveBytes.merge(SegmentLog.segmentOf(previous[0]), -previous[1], Long::sum);
+    }
+  }
+
+  private void recover() throws IOException {
+    boolean rebuild = false;
+    for (Map.Entry<Byte, String> table : TABLES.entrySet()) {
+      Path file = directory.resolve(table.getValue() + ".idx");
+      MappedIndex index;
+      try {
+        index = new MappedIndex(file);
+      } catch (IOException e) {
+        logger.warn("Discarding unreadable index {}, rebuilding it from the log", file, e);
+        Files.deleteIfExists(file);
+        index = new MappedIndex(file);
+      }
+      indexes.put(table.getKey(), index);
+      rebuild |= index.checkpoint() == 0;
+    }
+
+    if (!rebuild) {
+      // Replaying first also cuts off a torn tail, which the validation must not count
+      replayFrom(indexes.values().stream().mapToLong(MappedIndex::checkpoint).min().orElse(0));
+      for (MappedIndex index : indexes.values()) {
+        rebuild |= index.checkpoint() > log.end() || !valid(index);
+      }
+    }
+    if (rebuild) {
+      for (MappedIndex index : indexes.values()) {
+        index.clear();
+      }
+      replayFrom(log.start());
+    }
+
+    liveBytes.clear();
+    for (MappedIndex index : indexes.values()) {
+      index.forEach((id, location, length) ->
+          liveBytes.merge(SegmentLog.segmentOf(location), (long) length, Long::sum));
+    }
+    checkpoint();
+  }
+
+  private void replayFrom(long location) throws IOException {
+    List<IOException> failures = new ArrayList<>();
+    log.replay(location, record -> {
+      try {
+        replay(record);
+      } catch (IOException e) {
+        failures.add(e);
+      }
+    });
+    if (!failures.isEmpty()) {
+      throw failures.get(0);
+    }
+  }
+
+  private void replay(Record record) throws IOException {
+    MappedIndex index = indexes.get(record.table());
+    if (index == null) {
+      return;
+    }
+    if (record.op() == SegmentLog.PUT) {
+      index.put(record.id(), record.location(), record.length());
+    } else {
+      index.remove(record.id());
+    }
+  }
+
+  /**
+   * Whether every location in the index points at data the log still has.
+   */
+  private boolean valid(MappedIndex index) throws IOException {
+    Map<Integer, Long> lengths = new HashMap<>();
+    for (int segment : log.sealedSegments()) {
+      lengths.put(segment, log.segmentLength(segment));
+    }
+    lengths.put(SegmentLog.segmentOf(log.end()), SegmentLog.offsetOf(log.end()));
+    boolean[] valid = {true};
+    index.forEach((id, location, length) -> {
+      Long segmentLength = lengths.get(SegmentLog.segmentOf(location));
+      if (segmentLength == null || SegmentLog.offsetOf(location) + length > segmentLength) {
+        valid[0] = false;
+      }
+    });
+    return valid[0];
+  }
+
+  private void compact(int segment) throws IOException {
+    Set<Key> shadowing = shadowingDeletes(segment);
+    List<Record> chunk = new ArrayList<>();
+    long[] chunkBytes = {0};
+    List<IOException> failures = new ArrayList<>();
+    log.forEachRecord(segment, record -> {
+      chunk.add(record);
+      chunkBytes[0] += record.length();
+      if (chunkBytes[0] >= COMPACTION_BATCH_BYTES) {
+        try {
+          relocate(chunk, shadowing);
+        } catch (IOException e) {
+          failures.add(e);
+        }
+        chunk.clear();
+        chunkBytes[0] = 0;
+      }
+    });
+    relocate(chunk, shadowing);
+    if (!failures.isEmpty()) {
+      throw failures.get(0);
+    }
+
+    lock.writeLock().lock();
+    try {
+      checkpoint();
+      log.deleteSegment(segment);
+      liveBytes.remove(segment);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * The deletes in the segment that hide a put in an older segment, which a full rebuild would
+   * otherwise bring back. Any other delete can be dropped when the segment is compacted.
+   */
+  private Set<Key> shadowingDeletes(int segment) throws IOException {
+    Set<Key> deletes = new HashSet<>();
+    if (log.hasSegmentBefore(segment)) {
+      log.forEachRecord(segment, record -> {
+        if (record.op() == SegmentLog.DELETE) {
+          deletes.add(new Key(record.table(), record.id()));
+        }
+      });
+    }
+    Set<Key> shadowing = new HashSet<>();
+    if (deletes.isEmpty()) {
+      return shadowing;
+    }
+    for (int older : log.sealedSegments()) {
+      if (older >= segment) {
+        break;
+      }
+      log.forEachRecord(older, record -> {
+        Key key = new Key(record.table(), record.id());
+        if (record.op() == SegmentLog.PUT && deletes.contains(key)) {
+          shadowing.add(key);
+        }
+      });
+    }
+    return shadowing;
+  }
+
+  /**
+   * Copies the records of a segment being compacted to the end of the log if they still matter:
+   * puts the index still points at, and deletes of absent ids that still shadow an older put.
+   */
+  private void relocate(List<Record> records, Set<Key> shadowing) throws IOException {
+    if (records.isEmpty()) {
+      return;
+    }
+    lock.writeLock().lock();
+    try {
+      List<Write> writes = new ArrayList<>();
+      for (Record record : records) {
+        MappedIndex index = indexes.get(record.table());
+        if (index == null) {
+          continue;
+        }
+        long[] slot = index.get(record.id());
+        boolean live = record.op() == SegmentLog.PUT
+            ? slot != null && slot[0] == record.location()
+            : slot == null && shadowing.contains(new Key(record.table(), record.id()));
+        if (live) {
+          writes.add(new Write(record.op(), record.table(), record.id(), record.payload()));
+        }
+      }
+      if (writes.isEmpty()) {
+        return;
+      }
+      long[] locations = log.append(writes);
+      for (int i = 0; i < locations.length; i++) {
+        Write write = writes.get(i);
+        apply(write.op(), write.table(), write.id(), locations[i], write.recordLength());
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void maintain() {
+    try {
+      compact();
+      checkpoint();
+    } catch (Exception e) {
+      logger.error("Compaction of {} failed", directory, e);
+    }
+  }
+
+  /**
+   * Called after a write commits with the stored payload, or {@code null} for a delete.
+   */
+  @FunctionalInterface
+  public interface CommitListener {
+
+    void committed(ObjectId id, byte[] payload);
+  }
+
+  /**
+   * Writes buffered by a transaction until it commits.
+   */
+  static class Batch {
+
+    private final List<Write> writes = new ArrayList<>();
+    private final Map<Key, Read> reads = new HashMap<>();
+    private boolean rollbackOnly;
+
+    boolean isRollbackOnly() {
+      return rollbackOnly;
+    }
+
+    void setRollbackOnly() {
+      rollbackOnly = true;
+    }
+
+    void clear() {
+      writes.clear();
+      reads.clear();
+    }
+  }
+
+  private record Key(byte table, ObjectId id) {
+  }
+
+  /**
+   * A committed value as a transaction first read it; location {@code 0} means absent.
+   */
+  private record Read(long location, byte[] payload) {
+  }
+}
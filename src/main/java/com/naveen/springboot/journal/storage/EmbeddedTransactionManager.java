@@ -0,0 +1,96 @@
+package com.naveen.springboot.journal.storage;
+
+import com.naveen.springboot.journal.storage.EmbeddedStore.Batch;
+import java.io.IOException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.SmartTransactionObject;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Backs {@code @Transactional} with {@link EmbeddedStore}: writes made on the thread are
+ * collected in a batch bound to the store and appended to the log in one piece on commit, or
+ * dropped on rollback. Concurrent transactions do not see each other's writes until commit, and
+ * a commit fails with {@link org.springframework.dao.ConcurrencyFailureException} when a record
+ * the transaction read was changed by another commit in the meantime.
+ */
+public class EmbeddedTransactionManager extends AbstractPlatformTransactionManager {
+
+  private final EmbeddedStore store;
+
+  public EmbeddedTransactionManager(EmbeddedStore store) {
+    this.store = store;
+  }
+
+  @Override
+  protected Object doGetTransaction() {
+    return new TransactionObject((Batch) TransactionSynchronizationManager.getResource(store));
+  }
+
+  @Override
+  protected boolean isExistingTransaction(Object transaction) {
+    return ((TransactionObject) transaction).batch != null;
+  }
+
+  @Override
+  protected void doBegin(Object transaction, TransactionDefinition definition) {
+    Batch batch = store.newBatch();
+    TransactionSynchronizationManager.bindResource(store, batch);
+    ((TransactionObject) transaction).batch = batch;
+  }
+
+  @Override
+  protected Object doSuspend(Object transaction) {
+    ((TransactionObject) transaction).batch = null;
+    return TransactionSynchronizationManager.unbindResource(store);
+  }
+
+  @Override
+  protected void doResume(Object transaction, Object suspendedResources) {
+    TransactionSynchronizationManager.bindResource(store, suspendedResources);
+  }
+
+  @Override
+  protected void doCommit(DefaultTransactionStatus status) {
+    try {
+      store.commit(((TransactionObject) status.getTransaction()).batch);
+    } catch (IOException e) {
+      throw new TransactionSystemException("Could not append the transaction to the log", e);
+    }
+  }
+
+  @Override
+  protected void doRollback(DefaultTransactionStatus status) {
+    ((TransactionObject) status.getTransaction()).batch.clear();
+  }
+
+  @Override
+  protected void doSetRollbackOnly(DefaultTransactionStatus status) {
+    ((TransactionObject) status.getTransaction()).batch.setRollbackOnly();
+  }
+
+  @Override
+  protected void doCleanupAfterCompletion(Object transaction) {
+    TransactionSynchronizationManager.unbindResourceIfPossible(store);
+  }
+
+  private static class TransactionObject implements SmartTransactionObject {
+
+    private Batch batch;
+
+    TransactionObject(Batch batch) {
+      this.batch = batch;
+    }
+
+    @Override
+    public boolean isRollbackOnly() {
+      return batch != null && batch.isRollbackOnly();
+    }
+
+    @Override
+    public void flush() {
+    }
+  }
+}
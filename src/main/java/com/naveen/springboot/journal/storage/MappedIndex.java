@@ -0,0 +1,271 @@
+package com.naveen.springboot.journal.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import org.bson.types.ObjectId;
+
+/**
+ * Open-addressing hash table from {@link ObjectId} to a record's log location and length, kept
+ * in a memory-mapped file so it survives restarts without a full log scan. The header records a
+ * checkpoint: the log location up to which the table is known to be complete. Changes after the
+ * checkpoint may or may not have reached the file, so recovery replays the log from there.
+ *
+ * <p>Slots are {@code [12-byte id][long location][int length]}; a location of {@code 0} marks an
+ * empty slot and {@code -1} a removed one. The table doubles into a new file once three quarters
+ * of its slots are used. Not thread-safe; {@link EmbeddedStore} serializes writers.
+ */
+public class MappedIndex implements Closeable {
+
+  static final int MAGIC = 0x4A494458;
+  static final int VERSION = 1;
+  static final int HEADER = 32;
+  static final int SLOT = 24;
+  static final int MIN_CAPACITY = 1024;
+
+  private static final long EMPTY = 0;
+  private static final long REMOVED = -1;
+
+  private final Path file;
+  private FileChannel channel;
+  private MappedByteBuffer buffer;
+  private int capacity;
+  private int size;
+  private int used;
+
+  public MappedIndex(Path file) throws IOException {
+    this.file = file;
+    if (Files.exists(file) && Files.size(file) >= HEADER) {
+      map(FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE));
+      if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+          || Files.size(file) != HEADER + (long) buffer.getInt(8) * SLOT) {
+        throw new IOException(file + " is not a journal index");
+      }
+      capacity = buffer.getInt(8);
+      countSlots();
+    } else {
+      create(file, MIN_CAPACITY);
+      map(FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE));
+      capacity = MIN_CAPACITY;
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public long checkpoint() {
+    return buffer.getLong(24);
+  }
+
+  /**
+   * Records that the table reflects every log record before {@code location} and flushes it.
+   */
+  public void checkpoint(long location) {
+    buffer.putLong(24, location);
+    buffer.force();
+  }
+
+  /**
+   * Returns {@code {location, length}} for the id, or {@code null} if it is not present.
+   */
+  public long[] get(ObjectId id) {
+    int slot = find(id.toByteArray());
+    if (slot < 0) {
+      return null;
+    }
+    int offset = slotOffset(slot);
+    return new long[] {buffer.getLong(offset + 12), buffer.getInt(offset + 20)};
+  }
+
+  /**
+   * Maps the id to a record and returns the previous {@code {location, length}}, if any.
+   */
+  public long[] put(ObjectId id, long location, int length) throws IOException {
+    if (used + 1 > capacity * 3L / 4) {
+      resize(size + 1 > capacity / 2 ? capacity * 2 : capacity);
+    }
+    byte[] key = id.toByteArray();
+    int slot = find(key);
+    long[] previous = null;
+    if (slot >= 0) {
+      int offset = slotOffset(slot);
+      previous = new long[] {buffer.getLong(offset + 12), buffer.getInt(offset + 20)};
+    } else {
+      slot = -slot - 1;
+      if (buffer.getLong(slotOffset(slot) + 12) == EMPTY) {
+        used++;
+      }
+      size++;
+    }
+    int offset = slotOffset(slot);
+    buffer.put(offset, key);
+    buffer.putLong(offset + 12, location);
+    buffer.putInt(offset + 20, length);
+    writeCounts();
+    return previous;
+  }
+
+  /**
+   * Removes the id and returns its previous {@code {location, length}}, if any.
+   */
+  public long[] remove(ObjectId id) {
+    int slot = find(id.toByteArray());
+    if (slot < 0) {
+      return null;
+    }
+    int offset = slotOffset(slot);
+    long[] previous = {buffer.getLong(offset + 12), buffer.getInt(offset + 20)};
+    buffer.putLong(offset + 12, REMOVED);
+    size--;
+    writeCounts();
+    return previous;
+  }
+
+  public void clear() {
+    for (int slot = 0; slot < capacity; slot++) {
+      buffer.putLong(slotOffset(slot) + 12, EMPTY);
+    }
+    size = 0;
+    used = 0;
+    writeCounts();
+    buffer.putLong(24, 0);
+  }
+
+  public void forEach(SlotConsumer consumer) {
+    byte[] key = new byte[12];
+    for (int slot = 0; slot < capacity; slot++) {
+      int offset = slotOffset(slot);
+      long location = buffer.getLong(offset + 12);
+      if (location != EMPTY && location != REMOVED) {
+        buffer.get(offset, key);
+        consumer.accept(new ObjectId(key), location, buffer.getInt(offset + 20));
+      }
+    }
+  }
+
+  public void force() {
+    buffer.force();
+  }
+
+  @Override
+  public void close() throws IOException {
+    buffer.force();
+    channel.close();
+  }
+
+  /**
+   * Returns the slot holding the key, or {@code -(insertion slot) - 1} if it is absent.
+   */
+  private int find(byte[] key) {
+    int mask = capacity - 1;
+    int slot = hash(key) & mask;
+    int firstRemoved = -1;
+    byte[] candidate = new byte[12];
+    while (true) {
+      int offset = slotOffset(slot);
+      long location = buffer.getLong(offset + 12);
+      if (location == EMPTY) {
+        return -(firstRemoved >= 0 ? firstRemoved : slot) - 1;
+      }
+      if (location == REMOVED) {
+        if (firstRemoved < 0) {
+          firstRemoved = slot;
+        }
+      } else {
+        buffer.get(offset, candidate);
+        if (java.util.Arrays.equals(candidate, key)) {
+          return slot;
+        }
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  private void resize(int newCapacity) throws IOException {
+    Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+    create(temp, newCapacity);
+    MappedIndex resized = new MappedIndex(temp);
+    forEach((id, location, length) -> {
+      try {
+        resized.put(id, location, length);
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    resized.checkpoint(checkpoint());
+    resized.close();
+    channel.close();
+    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    map(FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE));
+    capacity = newCapacity;
+    used = size;
+  }
+
+  private void map(FileChannel channel) throws IOException {
+    this.channel = channel;
+    this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+  }
+
+  /**
+   * Recounts live and used slots. The header counts are written with every change but are not
+   * covered by the checkpoint, so after a crash they need not match the slots.
+   */
+  private void countSlots() {
+    size = 0;
+    used = 0;
+    for (int slot = 0; slot < capacity; slot++) {
+      long location = buffer.getLong(slotOffset(slot) + 12);
+      if (location != EMPTY) {
+        used++;
+        if (location != REMOVED) {
+          size++;
+        }
+      }
+    }
+    writeCounts();
+  }
+
+  private void writeCounts() {
+    buffer.putInt(12, size);
+    buffer.putInt(16, used);
+  }
+
+  private static void create(Path file, int capacity) throws IOException {
+    long length = HEADER + (long) capacity * SLOT;
+    if (length > Integer.MAX_VALUE) {
+      throw new IOException("Index would exceed the 2 GB mapping limit");
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+      header.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, capacity);
+      header.force();
+    }
+  }
+
+  private static int slotOffset(int slot) {
+    return HEADER + slot * SLOT;
+  }
+
+  private static int hash(byte[] key) {
+    // ObjectIds from one process share their middle bytes, so mix all of them
+    int h = 0x9E3779B9;
+    for (byte b : key) {
+      h = (h ^ b) * 0x01000193;
+    }
+    return h ^ (h >>> 16);
+  }
+
+  @FunctionalInterface
+  public interface SlotConsumer {
+
+    void accept(ObjectId id, long location, int length);
+  }
+}
@@ -0,0 +1,321 @@
+package com.naveen.springboot.journal.storage;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+import org.bson.types.ObjectId;
+
+/**
+ * Append-only log split into numbered segment files. Records are written in batches framed as
+ * {@code [int length][int crc32c][records]}; each record is
+ * {@code [byte op][byte table][12-byte id][int payload length][payload]}. A batch never spans
+ * two segments, and after a crash it is either complete or dropped when the tail is recovered.
+ *
+ * <p>Records are addressed by a location: the segment number in the high 32 bits and the
+ * record's offset inside the segment in the low 32 bits. Only the active segment is ever
+ * written; sealed segments are immutable until compaction deletes them.
+ */
+public class SegmentLog implements Closeable {
+
+  public static final byte PUT = 1;
+  public static final byte DELETE = 2;
+
+  static final int SEGMENT_MAGIC = 0x4A4C4F47;
+  static final int SEGMENT_VERSION = 1;
+  static final int SEGMENT_HEADER = 8;
+  static final int BATCH_HEADER = 8;
+  static final int RECORD_HEADER = 18;
+
+  private static final String PREFIX = "segment-";
+  private static final String SUFFIX = ".log";
+
+  private final Path directory;
+  private final long segmentSize;
+  private final boolean syncWrites;
+  private final NavigableMap<Integer, FileChannel> segments = new ConcurrentSkipListMap<>();
+  private int activeId;
+  private long activePosition;
+
+  public SegmentLog(Path directory, long segmentSize, boolean syncWrites) throws IOException {
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.syncWrites = syncWrites;
+    Files.createDirectories(directory);
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        int id = Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        segments.put(id, FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE));
+      }
+    }
+    if (segments.isEmpty()) {
+      roll(1);
+      return;
+    }
+    activeId = segments.lastKey();
+    FileChannel active = segments.get(activeId);
+    if (active.size() < SEGMENT_HEADER) {
+      // Crashed while rolling, before the header was written
+      active.truncate(0);
+      writeHeader(active);
+    }
+    activePosition = active.size();
+    for (Map.Entry<Integer, FileChannel> segment : segments.entrySet()) {
+      ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER);
+      readFully(segment.getValue(), header, 0);
+      if (header.getInt(0) != SEGMENT_MAGIC || header.getInt(4) != SEGMENT_VERSION) {
+        throw new IOException("Segment " + segment.getKey() + " is not a journal log segment");
+      }
+    }
+  }
+
+  public static long location(int segment, long offset) {
+    return ((long) segment << 32) | offset;
+  }
+
+  public static int segmentOf(long location) {
+    return (int) (location >>> 32);
+  }
+
+  public static long offsetOf(long location) {
+    return location & 0xFFFFFFFFL;
+  }
+
+  /**
+   * The location just past the last appended batch.
+   */
+  public synchronized long end() {
+    return location(activeId, activePosition);
+  }
+
+  /**
+   * The location of the first batch in the oldest segment.
+   */
+  public long start() {
+    return location(segments.firstKey(), SEGMENT_HEADER);
+  }
+
+  /**
+   * Appends the writes as one batch and returns the location of each record, in order.
+   */
+  public synchronized long[] append(List<Write> writes) throws IOException {
+    int size = BATCH_HEADER;
+    for (Write write : writes) {
+      size += write.recordLength();
+    }
+    if (activePosition > SEGMENT_HEADER && activePosition + size > segmentSize) {
+      roll(activeId + 1);
+    }
+
+    ByteBuffer batch = ByteBuffer.allocate(size);
+    batch.position(BATCH_HEADER);
+    long[] locations = new long[writes.size()];
+    for (int i = 0; i < writes.size(); i++) {
+      Write write = writes.get(i);
+      locations[i] = location(activeId, activePosition + batch.position());
+      batch.put(write.op()).put(write.table()).put(write.id().toByteArray());
+      byte[] payload = write.payload() == null ? new byte[0] : write.payload();
+      batch.putInt(payload.length).put(payload);
+    }
+    CRC32C crc = new CRC32C();
+    crc.update(batch.array(), BATCH_HEADER, size - BATCH_HEADER);
+    batch.putInt(0, size - BATCH_HEADER).putInt(4, (int) crc.getValue());
+    batch.flip();
+
+    FileChannel active = segments.get(activeId);
+    long position = activePosition;
+    while (batch.hasRemaining()) {
+      position += active.write(batch, position);
+    }
+    if (syncWrites) {
+      active.force(false);
+    }
+    activePosition = position;
+    return locations;
+  }
+
+  /**
+   * Reads the payload of the record at {@code location}, whose full length including the record
+   * header is {@code length}.
+   */
+  public byte[] read(long location, int length) throws IOException {
+    FileChannel segment = segments.get(segmentOf(location));
+    if (segment == null) {
+      throw new IOException("Segment " + segmentOf(location) + " does not exist");
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    readFully(segment, buffer, offsetOf(location));
+    byte[] payload = new byte[length - RECORD_HEADER];
+    buffer.position(RECORD_HEADER);
+    buffer.get(payload);
+    return payload;
+  }
+
+  /**
+   * Calls {@code consumer} for every record from the batch at {@code from} to the end of the
+   * log, oldest first. A torn or corrupt batch at the end of the newest segment is cut off; one
+   * anywhere else fails the replay.
+   */
+  public synchronized void replay(long from, Consumer<Record> consumer) throws IOException {
+    for (int id : segments.tailMap(segmentOf(from), true).keySet()) {
+      long offset = id == segmentOf(from) ? offsetOf(from) : SEGMENT_HEADER;
+      long valid = readSegment(id, offset, consumer);
+      FileChannel segment = segments.get(id);
+      if (valid < segment.size()) {
+        if (id != segments.lastKey()) {
+          throw new IOException("Corrupt batch at offset " + valid + " of sealed segment " + id);
+        }
+        segment.truncate(valid);
+        segment.force(true);
+        activePosition = valid;
+      }
+    }
+  }
+
+  /**
+   * Reads every record of one segment, for compaction.
+   */
+  public void forEachRecord(int id, Consumer<Record> consumer) throws IOException {
+    readSegment(id, SEGMENT_HEADER, consumer);
+  }
+
+  /**
+   * Segments that are no longer written to, oldest first.
+   */
+  public synchronized List<Integer> sealedSegments() {
+    return new ArrayList<>(segments.headMap(activeId, false).keySet());
+  }
+
+  public boolean hasSegmentBefore(int id) {
+    return segments.lowerKey(id) != null;
+  }
+
+  public boolean containsSegment(int id) {
+    return segments.containsKey(id);
+  }
+
+  public long segmentLength(int id) throws IOException {
+    FileChannel segment = segments.get(id);
+    return segment == null ? 0 : segment.size();
+  }
+
+  public synchronized void deleteSegment(int id) throws IOException {
+    if (id == activeId) {
+      throw new IllegalArgumentException("Cannot delete the active segment");
+    }
+    FileChannel segment = segments.remove(id);
+    if (segment != null) {
+      segment.close();
+      Files.deleteIfExists(segmentFile(id));
+    }
+  }
+
+  public synchronized void force() throws IOException {
+    segments.get(activeId).force(false);
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    for (FileChannel segment : segments.values()) {
+      segment.force(true);
+      segment.close();
+    }
+    segments.clear();
+  }
+
+  private long readSegment(int id, long offset, Consumer<Record> consumer) throws IOException {
+    FileChannel segment = segments.get(id);
+    long size = segment.size();
+    ByteBuffer header = ByteBuffer.allocate(BATCH_HEADER);
+    while (offset + BATCH_HEADER <= size) {
+      header.clear();
+      readFully(segment, header, offset);
+      int length = header.getInt(0);
+      if (length < 0 || offset + BATCH_HEADER + length > size) {
+        return offset;
+      }
+      ByteBuffer batch = ByteBuffer.allocate(length);
+      readFully(segment, batch, offset + BATCH_HEADER);
+      CRC32C crc = new CRC32C();
+      crc.update(batch.array(), 0, length);
+      if ((int) crc.getValue() != header.getInt(4)) {
+        return offset;
+      }
+      batch.flip();
+      while (batch.hasRemaining()) {
+        long location = location(id, offset + BATCH_HEADER + batch.position());
+        byte op = batch.get();
+        byte table = batch.get();
+        byte[] idBytes = new byte[12];
+        batch.get(idBytes);
+        byte[] payload = new byte[batch.getInt()];
+        batch.get(payload);
+        consumer.accept(new Record(op, table, new ObjectId(idBytes), payload, location,
+            RECORD_HEADER + payload.length));
+      }
+      offset += BATCH_HEADER + length;
+    }
+    return offset;
+  }
+
+  private void roll(int id) throws IOException {
+    if (segments.containsKey(activeId)) {
+      segments.get(activeId).force(true);
+    }
+    FileChannel segment = FileChannel.open(segmentFile(id), StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    writeHeader(segment);
+    segments.put(id, segment);
+    activeId = id;
+    activePosition = SEGMENT_HEADER;
+  }
+
+  private static void writeHeader(FileChannel segment) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER)
+        .putInt(SEGMENT_MAGIC)
+        .putInt(SEGMENT_VERSION)
+        .flip();
+    while (header.hasRemaining()) {
+      segment.write(header, header.position());
+    }
+    segment.force(true);
+  }
+
+  private Path segmentFile(int id) {
+    return directory.resolve(String.format("%s%06d%s", PREFIX, id, SUFFIX));
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      int n = channel.read(buffer, position + buffer.position());
+      if (n < 0) {
+        throw new EOFException("Unexpected end of segment");
+      }
+    }
+  }
+
+  public record Write(byte op, byte table, ObjectId id, byte[] payload) {
+
+    int recordLength() {
+      return RECORD_HEADER + (payload == null ? 0 : payload.length);
+    }
+  }
+
+  public record Record(byte op, byte table, ObjectId id, byte[] payload, long location,
+      int length) {
+  }
+}
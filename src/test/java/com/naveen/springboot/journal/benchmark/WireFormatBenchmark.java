@@ -0,0 +1,127 @@
+package com.naveen.springboot.journal.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.deser.std.FromStringDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.naveen.springboot.journal.config.BinaryFormatsConfig;
+import com.naveen.springboot.journal.entity.JournalEntity;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Payload size and encode/decode throughput of a user's journal list in JSON, CBOR and Smile.
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     com.naveen.springboot.journal.benchmark.WireFormatBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+
+  private static final TypeReference<List<JournalEntity>> ENTRY_LIST = new TypeReference<>() {
+  };
+
+  @Param({"json", "cbor", "smile"})
+  private String format;
+
+  @Param({"500"})
+  private int entries;
+
+  private ObjectMapper mapper;
+  private List<JournalEntity> journal;
+  private byte[] payload;
+
+  @Setup
+  public void setUp() throws Exception {
+    mapper = mapper(format);
+    journal = journal(entries);
+    payload = mapper.writeValueAsBytes(journal);
+  }
+
+  @Benchmark
+  public byte[] encode() throws Exception {
+    return mapper.writeValueAsBytes(journal);
+  }
+
+  @Benchmark
+  public List<JournalEntity> decode() throws Exception {
+    return mapper.readValue(payload, ENTRY_LIST);
+  }
+
+  static ObjectMapper mapper(String format) {
+    return switch (format) {
+      case "json" -> jsonMapper();
+      case "cbor" -> BinaryFormatsConfig.cborMapper(new Jackson2ObjectMapperBuilder());
+      case "smile" -> BinaryFormatsConfig.smileMapper(new Jackson2ObjectMapperBuilder());
+      default -> throw new IllegalArgumentException("Unknown format " + format);
+    };
+  }
+
+  // JSON as a client would reasonably send it: hex ObjectIds and ISO-8601 dates.
+  static ObjectMapper jsonMapper() {
+    SimpleModule objectIds = new SimpleModule()
+        .addSerializer(ObjectId.class, ToStringSerializer.instance)
+        .addDeserializer(ObjectId.class, new FromStringDeserializer<>(ObjectId.class) {
+          @Override
+          protected ObjectId _deserialize(String value, DeserializationContext ctxt) {
+            return new ObjectId(value);
+          }
+        });
+    return new Jackson2ObjectMapperBuilder()
+        .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .build()
+        .registerModule(objectIds);
+  }
+
+  static List<JournalEntity> journal(int size) {
+    List<JournalEntity> journal = new ArrayList<>(size);
+    LocalDateTime date = LocalDateTime.of(2024, 1, 1, 8, 0);
+    for (int i = 0; i < size; i++) {
+      JournalEntity entity = new JournalEntity();
+      entity.setId(new ObjectId());
+      entity.setTitle("Entry " + i);
+      entity.setContent("Today I wrote entry number " + i + " about the weather and my plans.");
+      entity.setDate(date.plusHours(i));
+      journal.add(entity);
+    }
+    return journal;
+  }
+
+  public static void main(String[] args) throws Exception {
+    List<JournalEntity> journal = journal(500);
+    for (String format : List.of("json", "cbor", "smile")) {
+      System.out.printf("%-6s payload for 500 entries: %,d bytes%n", format,
+          mapper(format).writeValueAsBytes(journal).length);
+    }
+    new Runner(new OptionsBuilder().include(WireFormatBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
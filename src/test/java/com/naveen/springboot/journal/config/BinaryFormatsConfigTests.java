@@ -0,0 +1,196 @@
+package com.naveen.springboot.journal.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.naveen.springboot.journal.controller.JournalEntryControllerV2;
+import com.naveen.springboot.journal.entity.Attachment;
+import com.naveen.springboot.journal.entity.Enrichment;
+import com.naveen.springboot.journal.entity.JournalEntity;
+import com.naveen.springboot.journal.service.Bulkhead;
+import com.naveen.springboot.journal.service.JournalEntryService;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class BinaryFormatsConfigTests {
+
+  private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+  private final JournalEntryService journalEntryService = mock(JournalEntryService.class);
+  private final Bulkhead bulkhead = new Bulkhead("test", 1, 1, 10, Duration.ofSeconds(5));
+  private JournalEntity entity;
+  private MockMvc mockMvc;
+
+  @BeforeEach
+  public void setUp() {
+    entity = new JournalEntity();
+    entity.setId(new ObjectId());
+    entity.setTitle("Morning");
+    entity.setContent("Went for a run");
+    entity.setDate(LocalDateTime.of(2024, 5, 17, 7, 30, 15, 250_000_000));
+
+    JournalEntryControllerV2 controller = new JournalEntryControllerV2();
+    ReflectionTestUtils.setField(controller, "journalEntryService", journalEntryService);
+    ReflectionTestUtils.setField(controller, "readBulkhead", bulkhead);
+    ReflectionTestUtils.setField(controller, "writeBulkhead", bulkhead);
+    BinaryFormatsConfig config = new BinaryFormatsConfig();
+    mockMvc = MockMvcBuilders.standaloneSetup(controller)
+        .setMessageConverters(
+            new MappingJackson2HttpMessageConverter(Jackson2ObjectMapperBuilder.json().build()),
+            config.cborHttpMessageConverter(Jackson2ObjectMapperBuilder.json()),
+            config.smileHttpMessageConverter(Jackson2ObjectMapperBuilder.json()))
+        .build();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    bulkhead.destroy();
+  }
+
+  @Test
+  public void cbor_RoundTrip_ShouldPreserveEntity() throws Exception {
+    ObjectMapper mapper = BinaryFormatsConfig.cborMapper(new Jackson2ObjectMapperBuilder());
+
+    JournalEntity result = mapper.readValue(mapper.writeValueAsBytes(entity), JournalEntity.class);
+
+    assertEquals(entity, result);
+  }
+
+  @Test
+  public void smile_RoundTrip_ShouldPreserveEntity() throws Exception {
+    ObjectMapper mapper = BinaryFormatsConfig.smileMapper(new Jackson2ObjectMapperBuilder());
+
+    JournalEntity result = mapper.readValue(mapper.writeValueAsBytes(entity), JournalEntity.class);
+
+    assertEquals(entity, result);
+  }
+
+  @Test
+  public void cbor_ShouldEncodeObjectIdAsRawBytes() throws Exception {
+    ObjectMapper mapper = BinaryFormatsConfig.cborMapper(new Jackson2ObjectMapperBuilder());
+
+    byte[] encoded = mapper.writeValueAsBytes(entity.getId());
+
+    // 1 byte major type/length header followed by the 12 ObjectId bytes
+    assertEquals(13, encoded.length);
+  }
+
+  @Test
+  public void cbor_ShouldAcceptHexObjectIdAndIsoDate() throws Exception {
+    ObjectMapper mapper = BinaryFormatsConfig.cborMapper(new Jackson2ObjectMapperBuilder());
+    ObjectId id = new ObjectId();
+
+    assertEquals(id, mapper.readValue(mapper.writeValueAsBytes(id.toHexString()), ObjectId.class));
+    assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 5),
+        mapper.readValue(mapper.writeValueAsBytes("2024-01-02T03:04:05"), LocalDateTime.class));
+  }
+
+  @Test
+  public void getEntryById_AcceptingSmile_ShouldRespondWithSmile() throws Exception {
+    // Given
+    when(journalEntryService.getJournalEntryById(entity.getId())).thenReturn(Optional.of(entity));
+
+    // When
+    MvcResult result = perform(get("/api/journal/id/" + entity.getId().toHexString())
+        .accept(SMILE));
+
+    // Then
+    assertEquals(SMILE, MediaType.parseMediaType(result.getResponse().getContentType()));
+    ObjectMapper mapper = BinaryFormatsConfig.smileMapper(Jackson2ObjectMapperBuilder.json());
+    assertEquals(entity,
+        mapper.readValue(result.getResponse().getContentAsByteArray(), JournalEntity.class));
+  }
+
+  @Test
+  public void getEntryById_AcceptingCbor_ShouldRespondWithCbor() throws Exception {
+    // Given
+    when(journalEntryService.getJournalEntryById(entity.getId())).thenReturn(Optional.of(entity));
+
+    // When
+    MvcResult result = perform(get("/api/journal/id/" + entity.getId().toHexString())
+        .accept(MediaType.APPLICATION_CBOR));
+
+    // Then
+    assertEquals(MediaType.APPLICATION_CBOR,
+        MediaType.parseMediaType(result.getResponse().getContentType()));
+    ObjectMapper mapper = BinaryFormatsConfig.cborMapper(Jackson2ObjectMapperBuilder.json());
+    assertEquals(entity,
+        mapper.readValue(result.getResponse().getContentAsByteArray(), JournalEntity.class));
+  }
+
+  @Test
+  public void createEntry_WithCborBody_ShouldDecodeEntry() throws Exception {
+    // Given
+    ObjectMapper mapper = BinaryFormatsConfig.cborMapper(Jackson2ObjectMapperBuilder.json());
+
+    // When
+    perform(post("/api/journal/testuser")
+        .contentType(MediaType.APPLICATION_CBOR)
+        .content(mapper.writeValueAsBytes(entity)));
+
+    // Then
+    ArgumentCaptor<JournalEntity> saved = ArgumentCaptor.forClass(JournalEntity.class);
+    verify(journalEntryService).saveEntry(saved.capture(), eq("testuser"));
+    assertEquals("Morning", saved.getValue().getTitle());
+    assertEquals("Went for a run", saved.getValue().getContent());
+  }
+
+  @Test
+  public void createEntry_ShouldIgnoreServerManagedFields() throws Exception {
+    // Given
+    Attachment attachment = new Attachment();
+    attachment.setFileId(new ObjectId());
+    entity.setAttachments(List.of(attachment));
+    entity.setTags(List.of("run"));
+    entity.setUserId(new ObjectId());
+    entity.setChangeSeq(42);
+    entity.setDeleted(true);
+    entity.setEnrichment(new Enrichment());
+    ObjectMapper mapper = BinaryFormatsConfig.cborMapper(Jackson2ObjectMapperBuilder.json());
+
+    // When
+    perform(post("/api/journal/testuser")
+        .contentType(MediaType.APPLICATION_CBOR)
+        .content(mapper.writeValueAsBytes(entity)));
+
+    // Then
+    ArgumentCaptor<JournalEntity> saved = ArgumentCaptor.forClass(JournalEntity.class);
+    verify(journalEntryService).saveEntry(saved.capture(), eq("testuser"));
+    JournalEntity created = saved.getValue();
+    assertEquals(List.of("run"), created.getTags());
+    assertNull(created.getId());
+    assertNull(created.getAttachments());
+    assertNull(created.getUserId());
+    assertNull(created.getEnrichment());
+    assertEquals(0, created.getChangeSeq());
+    assertFalse(created.isDeleted());
+  }
+
+  private MvcResult perform(RequestBuilder request) throws Exception {
+    MvcResult started = mockMvc.perform(request).andReturn();
+    return mockMvc.perform(asyncDispatch(started))
+        .andExpect(status().is2xxSuccessful())
+        .andReturn();
+  }
+}
@@ -0,0 +1,135 @@
+package com.naveen.springboot.journal.controller;
+
+import com.naveen.springboot.journal.entity.Attachment;
+import com.naveen.springboot.journal.service.AttachmentService;
+import com.naveen.springboot.journal.service.Bulkhead;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class AttachmentControllerTests {
+
+  private final AttachmentService attachmentService = mock(AttachmentService.class);
+  private final Bulkhead bulkhead = new Bulkhead("test", 1, 1, 10, Duration.ofSeconds(5));
+  private final ObjectId entryId = new ObjectId();
+  private MockMvc mockMvc;
+
+  @BeforeEach
+  public void setUp() {
+    AttachmentController controller = new AttachmentController();
+    ReflectionTestUtils.setField(controller, "attachmentService", attachmentService);
+    ReflectionTestUtils.setField(controller, "attachmentBulkhead", bulkhead);
+    mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    bulkhead.destroy();
+  }
+
+  @Test
+  public void downloadAttachment_Html_ShouldBeServedAsDownloadWithNosniff() throws Exception {
+    // Given
+    Attachment attachment = stored("page.html", "text/html");
+
+    // When & Then
+    mockMvc.perform(get(path() + "/" + attachment.getFileId().toHexString()))
+        .andExpect(status().isOk())
+        .andExpect(header().string("X-Content-Type-Options", "nosniff"))
+        .andExpect(header().string("Content-Disposition", "attachment; filename=\"page.html\""));
+  }
+
+  @Test
+  public void downloadAttachment_Svg_ShouldBeServedAsDownload() throws Exception {
+    // Given
+    Attachment attachment = stored("logo.svg", "image/svg+xml");
+
+    // When & Then
+    mockMvc.perform(get(path() + "/" + attachment.getFileId().toHexString()))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Content-Disposition", "attachment; filename=\"logo.svg\""));
+  }
+
+  @Test
+  public void downloadAttachment_Image_ShouldBeServedInline() throws Exception {
+    // Given
+    Attachment attachment = stored("photo.jpg", "image/jpeg");
+
+    // When & Then
+    mockMvc.perform(get(path() + "/" + attachment.getFileId().toHexString()))
+        .andExpect(status().isOk())
+        .andExpect(header().string("X-Content-Type-Options", "nosniff"))
+        .andExpect(header().string("Content-Disposition", "inline; filename=\"photo.jpg\""));
+  }
+
+  @Test
+  public void downloadAttachment_MalformedStoredType_ShouldFallBackToOctetStream()
+      throws Exception {
+    // Given
+    Attachment attachment = stored("notes", "not a type");
+
+    // When & Then
+    mockMvc.perform(get(path() + "/" + attachment.getFileId().toHexString()))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Content-Type", MediaType.APPLICATION_OCTET_STREAM_VALUE))
+        .andExpect(header().string("Content-Disposition", "attachment; filename=\"notes\""));
+  }
+
+  @Test
+  public void uploadAttachment_MalformedContentType_ShouldReturnBadRequest() throws Exception {
+    // When & Then
+    mockMvc.perform(post(path()).param("fileName", "notes.txt")
+            .header("Content-Type", "text")
+            .content("hello"))
+        .andExpect(status().is4xxClientError());
+    verifyNoInteractions(attachmentService);
+  }
+
+  @Test
+  public void uploadAttachment_WildcardContentType_ShouldReturnBadRequest() throws Exception {
+    // When
+    MvcResult started = mockMvc.perform(post(path()).param("fileName", "notes.txt")
+            .header("Content-Type", "text/*")
+            .content("hello"))
+        .andReturn();
+
+    // Then
+    mockMvc.perform(asyncDispatch(started)).andExpect(status().isBadRequest());
+    verifyNoInteractions(attachmentService);
+  }
+
+  private Attachment stored(String fileName, String contentType) throws Exception {
+    Attachment attachment = new Attachment();
+    attachment.setFileId(new ObjectId());
+    attachment.setFileName(fileName);
+    attachment.setContentType(contentType);
+    attachment.setLength(5);
+    when(attachmentService.findAttachment("alice", entryId, attachment.getFileId()))
+        .thenReturn(Optional.of(attachment));
+    when(attachmentService.open(attachment, null))
+        .thenReturn(new ByteArrayInputStream("hello".getBytes(StandardCharsets.UTF_8)));
+    return attachment;
+  }
+
+  private String path() {
+    return "/api/journal/id/alice/" + entryId.toHexString() + "/attachments";
+  }
+}
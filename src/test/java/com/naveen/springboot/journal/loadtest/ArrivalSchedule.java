@@ -0,0 +1,51 @@
+package com.naveen.springboot.journal.loadtest;
+
+import java.time.Duration;
+
+/**
+ * When requests of one kind are due, as offsets from the start of the run. Schedules never look
+ * at responses: a slow server faces the same offered load as a fast one.
+ */
+@FunctionalInterface
+public interface ArrivalSchedule {
+
+  /**
+   * The offset in nanoseconds of the next arrival. Never decreases between calls;
+   * {@link Long#MAX_VALUE} means no more arrivals.
+   */
+  long nextNanos();
+
+  /**
+   * Evenly spaced arrivals at a constant rate.
+   */
+  static ArrivalSchedule constant(double perSecond) {
+    if (perSecond <= 0) {
+      return () -> Long.MAX_VALUE;
+    }
+    double interval = 1e9 / perSecond;
+    long[] count = {0};
+    return () -> (long) (count[0]++ * interval);
+  }
+
+  /**
+   * {@code size} arrivals at {@code perSecond} at the start of every {@code period}, nothing in
+   * between.
+   */
+  static ArrivalSchedule bursts(int size, double perSecond, Duration period) {
+    if (size <= 0 || perSecond <= 0) {
+      return () -> Long.MAX_VALUE;
+    }
+    double interval = 1e9 / perSecond;
+    long periodNanos = period.toNanos();
+    if (size * interval > periodNanos) {
+      throw new IllegalArgumentException("A burst of " + size + " at " + perSecond
+          + "/s does not fit in " + period);
+    }
+    long[] count = {0};
+    return () -> {
+      long burst = count[0] / size;
+      long inBurst = count[0]++ % size;
+      return burst * periodNanos + (long) (inBurst * interval);
+    };
+  }
+}
@@ -0,0 +1,163 @@
+package com.naveen.springboot.journal.loadtest;
+
+import com.naveen.springboot.journal.JournalApplication;
+import com.naveen.springboot.journal.loadtest.OpenLoopDriver.Result;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Replays the production traffic mix against the journal API and fails when latency or
+ * throughput targets are missed:
+ * <ul>
+ *   <li>{@code read} - steady polling of single entries, {@code GET /api/journal/id/{id}}</li>
+ *   <li>{@code write} - bursts of new entries, {@code POST /api/journal/{userName}}</li>
+ *   <li>{@code users} - occasional admin listing, {@code GET /api/users}</li>
+ * </ul>
+ * Requests are sent open loop by {@link OpenLoopDriver} and latencies recorded in HdrHistograms,
+ * written to {@code report-dir} as {@code <stream>.hgrm}. Without {@code --base-url} the app is
+ * started in-process on the embedded profile in a temporary directory.
+ *
+ * <pre>
+ * scripts/load-test.sh --duration=2m --read-rate=500
+ * </pre>
+ *
+ * Exits with 0 when every target is met, 1 when one is missed and 2 for invalid options.
+ */
+public class JournalLoadTest {
+
+  public static void main(String[] args) throws Exception {
+    LoadTestOptions options;
+    try {
+      options = LoadTestOptions.parse(args);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.print(LoadTestOptions.usage());
+      System.exit(2);
+      return;
+    }
+    System.exit(run(options).isEmpty() ? 0 : 1);
+  }
+
+  /**
+   * Runs the load test and returns the missed targets.
+   */
+  static List<String> run(LoadTestOptions options) throws Exception {
+    Path dataDirectory = null;
+    ConfigurableApplicationContext app = null;
+    String baseUrl = options.string("base-url");
+    try {
+      if (baseUrl.isEmpty()) {
+        dataDirectory = Files.createTempDirectory("journal-load-test");
+        app = startApp(dataDirectory, options.flag("sync-writes"));
+        baseUrl = "http://localhost:"
+            + ((WebServerApplicationContext) app).getWebServer().getPort();
+      }
+      System.out.println("Target " + baseUrl);
+
+      HttpClient client = HttpClient.newBuilder()
+          .version(HttpClient.Version.HTTP_1_1)
+          .connectTimeout(options.duration("request-timeout"))
+          .executor(Executors.newFixedThreadPool(4))
+          .build();
+      JournalWorkload workload = new JournalWorkload(client, baseUrl,
+          options.duration("request-timeout"), options.integer("users"),
+          options.number("zipf-exponent"));
+      workload.seed(options.integer("entries-per-user"));
+      System.out.printf("Seeded %d users with %d entries%n", options.integer("users"),
+          workload.seededEntries());
+
+      OpenLoopDriver driver = new OpenLoopDriver(options.integer("max-in-flight"));
+      driver.add("read", ArrivalSchedule.constant(options.number("read-rate")),
+          workload::readEntry);
+      driver.add("write", ArrivalSchedule.bursts(options.integer("write-burst-size"),
+          options.number("write-burst-rate"), options.duration("write-burst-interval")),
+          workload::createEntry);
+      driver.add("users", ArrivalSchedule.constant(options.number("users-rate")),
+          workload::listUsers);
+      System.out.printf("Offering %.1f req/s for %s after %s warmup%n", options.offeredRate(),
+          options.string("duration"), options.string("warmup"));
+      Map<String, Result> results = driver.run(options.duration("warmup"),
+          options.duration("duration"), options.duration("drain-timeout"));
+
+      report(results, System.out);
+      writeHistograms(results, Path.of(options.string("report-dir")));
+
+      SloGate gate = new SloGate(
+          options.number("min-throughput-ratio") * options.offeredRate(),
+          options.number("max-error-rate"))
+          .p99("read", options.duration("read-p99"))
+          .p99("write", options.duration("write-p99"))
+          .p99("users", options.duration("users-p99"));
+      List<String> violations = gate.check(results);
+      if (violations.isEmpty()) {
+        System.out.println("PASSED");
+      } else {
+        System.out.println("FAILED");
+        violations.forEach(violation -> System.out.println("  " + violation));
+      }
+      return violations;
+    } finally {
+      if (app != null) {
+        app.close();
+      }
+      if (dataDirectory != null) {
+        deleteRecursively(dataDirectory);
+      }
+    }
+  }
+
+  static void report(Map<String, Result> results, PrintStream out) {
+    out.printf("%-6s %9s %7s %7s %9s %9s %9s %9s %9s%n", "stream", "requests", "errors",
+        "req/s", "p50", "p90", "p99", "p99.9", "max");
+    for (Result result : results.values()) {
+      out.printf("%-6s %9d %7d %7.1f %9s %9s %9s %9s %9s%n", result.name(), result.requests(),
+          result.failed() + result.dropped(), result.throughput(),
+          SloGate.millis(result.percentile(50)), SloGate.millis(result.percentile(90)),
+          SloGate.millis(result.percentile(99)), SloGate.millis(result.percentile(99.9)),
+          SloGate.millis(Duration.ofNanos(result.latencies().getMaxValue())));
+    }
+  }
+
+  private static void writeHistograms(Map<String, Result> results, Path directory)
+      throws IOException {
+    Files.createDirectories(directory);
+    for (Result result : results.values()) {
+      Path file = directory.resolve(result.name() + ".hgrm");
+      try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+        // Scaled to milliseconds for the HdrHistogram plotter
+        result.latencies().outputPercentileDistribution(out, 1e6);
+      }
+    }
+    System.out.println("Latency distributions written to " + directory.toAbsolutePath());
+  }
+
+  private static ConfigurableApplicationContext startApp(Path dataDirectory, boolean syncWrites) {
+    System.setProperty("spring.devtools.restart.enabled", "false");
+    return SpringApplication.run(JournalApplication.class,
+        "--spring.profiles.active=embedded",
+        "--server.port=0",
+        "--journal.storage.embedded.directory=" + dataDirectory,
+        "--journal.storage.embedded.sync-writes=" + syncWrites,
+        "--logging.level.root=WARN");
+  }
+
+  private static void deleteRecursively(Path directory) throws IOException {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(path);
+      }
+    }
+  }
+}
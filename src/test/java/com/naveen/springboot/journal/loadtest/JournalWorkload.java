@@ -0,0 +1,186 @@
+package com.naveen.springboot.journal.loadtest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.naveen.springboot.journal.config.BinaryFormatsConfig;
+import com.naveen.springboot.journal.entity.JournalEntity;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import org.bson.types.ObjectId;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * The production traffic mix against the journal API: polling single entries by id, creating
+ * entries and listing users. Users are picked from a Zipf distribution over the seeded users,
+ * so a few hot users take most reads and writes.
+ */
+public class JournalWorkload {
+
+  static final String TAG = "load-test";
+
+  private static final TypeReference<List<JournalEntity>> ENTRY_LIST = new TypeReference<>() {
+  };
+  private static final String[] WORDS = {"morning", "coffee", "meeting", "walk", "idea",
+      "deadline", "family", "reading", "travel", "dinner", "workout", "project", "weekend"};
+
+  private final HttpClient client;
+  private final String baseUrl;
+  private final Duration requestTimeout;
+  private final ZipfSampler userSampler;
+  private final List<String> userNames = new ArrayList<>();
+  private final List<List<ObjectId>> entryIds = new ArrayList<>();
+  private final ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+  private final ObjectMapper smile =
+      BinaryFormatsConfig.smileMapper(Jackson2ObjectMapperBuilder.json());
+
+  public JournalWorkload(HttpClient client, String baseUrl, Duration requestTimeout, int users,
+      double zipfExponent) {
+    this.client = client;
+    this.baseUrl = baseUrl;
+    this.requestTimeout = requestTimeout;
+    this.userSampler = new ZipfSampler(users, zipfExponent);
+    for (int i = 0; i < users; i++) {
+      userNames.add(String.format("load-user-%04d", i));
+      entryIds.add(List.of());
+    }
+  }
+
+  /**
+   * Creates the users and tops each up to {@code entriesPerUser} tagged entries, then collects
+   * the entry ids to poll. Users that already exist on the target are reused.
+   */
+  public void seed(int entriesPerUser) throws InterruptedException {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<List<ObjectId>>> seeded = new ArrayList<>();
+      for (String userName : userNames) {
+        seeded.add(executor.submit(() -> seedUser(userName, entriesPerUser)));
+      }
+      for (int i = 0; i < seeded.size(); i++) {
+        entryIds.set(i, seeded.get(i).get());
+      }
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Seeding failed", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  public int seededEntries() {
+    return entryIds.stream().mapToInt(List::size).sum();
+  }
+
+  /**
+   * {@code GET /api/journal/id/{id}} for an entry of a Zipf-chosen user.
+   */
+  public CompletableFuture<Boolean> readEntry() {
+    List<ObjectId> ids = entryIds.get(userSampler.sample());
+    if (ids.isEmpty()) {
+      return CompletableFuture.completedFuture(false);
+    }
+    ObjectId id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    return send(request("/api/journal/id/" + id.toHexString()).GET().build());
+  }
+
+  /**
+   * {@code POST /api/journal/{userName}} for a Zipf-chosen user.
+   */
+  public CompletableFuture<Boolean> createEntry() {
+    String userName = userNames.get(userSampler.sample());
+    return send(request("/api/journal/" + userName)
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofByteArray(entryBody()))
+        .build());
+  }
+
+  /**
+   * {@code GET /api/users}.
+   */
+  public CompletableFuture<Boolean> listUsers() {
+    return send(request("/api/users").GET().build());
+  }
+
+  private List<ObjectId> seedUser(String userName, int entriesPerUser)
+      throws IOException, InterruptedException {
+    byte[] user = json.writeValueAsBytes(Map.of("userName", userName, "password", TAG));
+    // 400 when the user already exists from an earlier run
+    client.send(request("/api/users")
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofByteArray(user))
+        .build(), HttpResponse.BodyHandlers.discarding());
+
+    List<ObjectId> ids = fetchEntryIds(userName);
+    for (int i = ids.size(); i < entriesPerUser; i++) {
+      HttpResponse<Void> response = client.send(request("/api/journal/" + userName)
+          .header("Content-Type", "application/json")
+          .POST(HttpRequest.BodyPublishers.ofByteArray(entryBody()))
+          .build(), HttpResponse.BodyHandlers.discarding());
+      if (response.statusCode() / 100 != 2) {
+        throw new IOException("Creating an entry for " + userName + " returned "
+            + response.statusCode());
+      }
+    }
+    return ids.size() >= entriesPerUser ? ids : fetchEntryIds(userName);
+  }
+
+  /**
+   * The user's tagged entries, read as Smile because ObjectIds keep their full value there.
+   */
+  private List<ObjectId> fetchEntryIds(String userName) throws IOException, InterruptedException {
+    HttpResponse<byte[]> response = client.send(
+        request("/api/journal/" + userName + "?tags=" + TAG)
+            .header("Accept", "application/x-jackson-smile")
+            .GET()
+            .build(),
+        HttpResponse.BodyHandlers.ofByteArray());
+    if (response.statusCode() == 404) {
+      return List.of();
+    }
+    if (response.statusCode() != 200) {
+      throw new IOException("Listing entries of " + userName + " returned "
+          + response.statusCode());
+    }
+    return smile.readValue(response.body(), ENTRY_LIST).stream()
+        .map(JournalEntity::getId)
+        .toList();
+  }
+
+  private byte[] entryBody() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    StringBuilder content = new StringBuilder();
+    for (int i = 0, words = 20 + random.nextInt(200); i < words; i++) {
+      content.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+    }
+    try {
+      return json.writeValueAsBytes(Map.of(
+          "title", "Load test " + random.nextInt(1_000_000),
+          "content", content.toString().strip(),
+          "tags", List.of(TAG)));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private HttpRequest.Builder request(String path) {
+    return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(requestTimeout);
+  }
+
+  private CompletableFuture<Boolean> send(HttpRequest request) {
+    return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+        .thenApply(response -> response.statusCode() / 100 == 2);
+  }
+}
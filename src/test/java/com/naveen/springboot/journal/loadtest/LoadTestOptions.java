@@ -0,0 +1,100 @@
+package com.naveen.springboot.journal.loadtest;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * {@code --name=value} options of {@link JournalLoadTest}, with defaults for a short run against
+ * the in-process embedded app.
+ */
+public class LoadTestOptions {
+
+  static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+  static {
+    // Target; empty starts the app in-process on the embedded profile
+    DEFAULTS.put("base-url", "");
+    DEFAULTS.put("sync-writes", "true");
+    // Run length
+    DEFAULTS.put("warmup", "10s");
+    DEFAULTS.put("duration", "60s");
+    DEFAULTS.put("drain-timeout", "10s");
+    DEFAULTS.put("request-timeout", "5s");
+    DEFAULTS.put("max-in-flight", "2000");
+    // Data set and user skew
+    DEFAULTS.put("users", "100");
+    DEFAULTS.put("entries-per-user", "20");
+    DEFAULTS.put("zipf-exponent", "1.1");
+    // Offered load per request kind
+    DEFAULTS.put("read-rate", "200");
+    DEFAULTS.put("write-burst-size", "40");
+    DEFAULTS.put("write-burst-rate", "200");
+    DEFAULTS.put("write-burst-interval", "5s");
+    DEFAULTS.put("users-rate", "0.5");
+    // Gates
+    DEFAULTS.put("read-p99", "50ms");
+    DEFAULTS.put("write-p99", "250ms");
+    DEFAULTS.put("users-p99", "500ms");
+    DEFAULTS.put("min-throughput-ratio", "0.95");
+    DEFAULTS.put("max-error-rate", "0.01");
+    DEFAULTS.put("report-dir", "target/load-test");
+  }
+
+  private final Map<String, String> values = new LinkedHashMap<>(DEFAULTS);
+
+  /**
+   * @throws IllegalArgumentException for an unknown option or one without a value
+   */
+  public static LoadTestOptions parse(String... args) {
+    LoadTestOptions options = new LoadTestOptions();
+    for (String arg : args) {
+      int equals = arg.indexOf('=');
+      if (!arg.startsWith("--") || equals < 0) {
+        throw new IllegalArgumentException("Expected --name=value but got " + arg);
+      }
+      String name = arg.substring(2, equals);
+      if (!DEFAULTS.containsKey(name)) {
+        throw new IllegalArgumentException("Unknown option --" + name);
+      }
+      options.values.put(name, arg.substring(equals + 1));
+    }
+    return options;
+  }
+
+  public String string(String name) {
+    return values.get(name);
+  }
+
+  public int integer(String name) {
+    return Integer.parseInt(values.get(name));
+  }
+
+  public double number(String name) {
+    return Double.parseDouble(values.get(name));
+  }
+
+  public boolean flag(String name) {
+    return Boolean.parseBoolean(values.get(name));
+  }
+
+  public Duration duration(String name) {
+    return DurationStyle.detectAndParse(values.get(name));
+  }
+
+  /**
+   * Average requests per second the schedules offer, bursts spread over their interval.
+   */
+  public double offeredRate() {
+    return number("read-rate") + number("users-rate")
+        + integer("write-burst-size") / (duration("write-burst-interval").toNanos() / 1e9);
+  }
+
+  static String usage() {
+    StringBuilder usage = new StringBuilder("Options (default):\n");
+    DEFAULTS.forEach((name, value) ->
+        usage.append(String.format("  --%-22s %s%n", name, value.isEmpty() ? "-" : value)));
+    return usage.toString();
+  }
+}
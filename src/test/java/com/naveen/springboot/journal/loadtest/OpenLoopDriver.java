@@ -0,0 +1,189 @@
+package com.naveen.springboot.journal.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Fires requests at the times their {@link ArrivalSchedule} says they are due, whether or not
+ * earlier requests have completed (open loop). Latency is measured from that intended start
+ * rather than from when the request was actually sent, so a stall on the server or in this
+ * driver shows up in every request that should have gone out during it instead of being hidden
+ * by coordinated omission.
+ *
+ * <p>Requests due during the warmup are sent but not recorded. Once {@code maxInFlight} requests
+ * are outstanding, further arrivals are dropped and counted as failures. Dropped requests and
+ * requests never answered are recorded as having waited until the run ended, so they weigh on
+ * the percentiles rather than only on the error rate.
+ */
+public class OpenLoopDriver {
+
+  private final int maxInFlight;
+  private final List<Stream> streams = new ArrayList<>();
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  public OpenLoopDriver(int maxInFlight) {
+    this.maxInFlight = maxInFlight;
+  }
+
+  /**
+   * Adds a kind of request. The supplier starts one request and completes with whether it
+   * succeeded; it must not block.
+   */
+  public void add(String name, ArrivalSchedule schedule,
+      Supplier<CompletableFuture<Boolean>> request) {
+    streams.add(new Stream(name, schedule, request));
+  }
+
+  /**
+   * Runs the schedules for {@code warmup} plus {@code duration}, then waits up to
+   * {@code drainTimeout} for outstanding requests. Requests still outstanding after that count
+   * as failures, with the time until the end of the drain as their latency. Returns the results
+   * per stream, in the order they were added.
+   */
+  public Map<String, Result> run(Duration warmup, Duration duration, Duration drainTimeout) {
+    long warmupNanos = warmup.toNanos();
+    long endNanos = warmupNanos + duration.toNanos();
+    PriorityQueue<Arrival> arrivals = new PriorityQueue<>(Comparator.comparingLong(Arrival::due));
+    for (Stream stream : streams) {
+      arrivals.add(new Arrival(stream, stream.schedule.nextNanos()));
+    }
+
+    long start = System.nanoTime();
+    while (!arrivals.isEmpty()) {
+      Arrival arrival = arrivals.poll();
+      if (arrival.due() >= endNanos) {
+        continue;
+      }
+      long wait;
+      while ((wait = start + arrival.due() - System.nanoTime()) > 0) {
+        LockSupport.parkNanos(wait);
+      }
+      fire(arrival.stream(), start + arrival.due(), arrival.due() >= warmupNanos);
+      arrivals.add(new Arrival(arrival.stream(), arrival.stream().schedule.nextNanos()));
+    }
+
+    long drainDeadline = System.nanoTime() + drainTimeout.toNanos();
+    while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+      LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+    }
+
+    long end = System.nanoTime();
+    Map<String, Result> results = new LinkedHashMap<>();
+    for (Stream stream : streams) {
+      results.put(stream.name, stream.close(duration, end));
+    }
+    return results;
+  }
+
+  private void fire(Stream stream, long intendedStart, boolean measured) {
+    if (inFlight.incrementAndGet() > maxInFlight) {
+      inFlight.decrementAndGet();
+      if (measured) {
+        stream.dropped.add(intendedStart);
+      }
+      return;
+    }
+    long number = stream.sent.incrementAndGet();
+    if (measured) {
+      stream.outstanding.put(number, intendedStart);
+    }
+    CompletableFuture<Boolean> request;
+    try {
+      request = stream.request.get();
+    } catch (RuntimeException e) {
+      request = CompletableFuture.failedFuture(e);
+    }
+    request.whenComplete((succeeded, error) -> {
+      long latency = System.nanoTime() - intendedStart;
+      inFlight.decrementAndGet();
+      // Not recorded again if the stream was closed with the request still outstanding
+      if (measured && stream.outstanding.remove(number) != null) {
+        stream.recorder.recordValue(latency);
+        if (error == null && Boolean.TRUE.equals(succeeded)) {
+          stream.succeeded.increment();
+        } else {
+          stream.failed.increment();
+        }
+      }
+    });
+  }
+
+  /**
+   * Outcome of one stream over the measured part of the run. Latencies are in nanoseconds and
+   * include failed requests.
+   */
+  public record Result(String name, Histogram latencies, long succeeded, long failed,
+      long dropped, Duration duration) {
+
+    public long requests() {
+      return succeeded + failed + dropped;
+    }
+
+    public double throughput() {
+      return succeeded / (duration.toNanos() / 1e9);
+    }
+
+    public double errorRate() {
+      return requests() == 0 ? 0 : (double) (failed + dropped) / requests();
+    }
+
+    public Duration percentile(double percentile) {
+      return Duration.ofNanos(latencies.getValueAtPercentile(percentile));
+    }
+  }
+
+  private record Arrival(Stream stream, long due) {
+  }
+
+  private static class Stream {
+
+    private final String name;
+    private final ArrivalSchedule schedule;
+    private final Supplier<CompletableFuture<Boolean>> request;
+    private final Recorder recorder = new Recorder(3);
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final AtomicLong sent = new AtomicLong();
+    // Intended starts of measured requests by request number, until they complete
+    private final Map<Long, Long> outstanding = new ConcurrentHashMap<>();
+    // Intended starts of dropped requests; only touched by the thread running the driver
+    private final List<Long> dropped = new ArrayList<>();
+
+    Stream(String name, ArrivalSchedule schedule, Supplier<CompletableFuture<Boolean>> request) {
+      this.name = name;
+      this.schedule = schedule;
+      this.request = request;
+    }
+
+    Result close(Duration duration, long end) {
+      long unanswered = 0;
+      for (Long number : outstanding.keySet()) {
+        Long intendedStart = outstanding.remove(number);
+        if (intendedStart != null) {
+          recorder.recordValue(end - intendedStart);
+          unanswered++;
+        }
+      }
+      for (long intendedStart : dropped) {
+        recorder.recordValue(end - intendedStart);
+      }
+      return new Result(name, recorder.getIntervalHistogram(), succeeded.sum(),
+          failed.sum() + unanswered, dropped.size(), duration);
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package com.naveen.springboot.journal.loadtest;
+
+import com.naveen.springboot.journal.loadtest.OpenLoopDriver.Result;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OpenLoopDriverTests {
+
+  @Test
+  public void run_WhenServerStalls_ShouldMeasureQueuedRequestsFromIntendedStart() {
+    // Given
+    ExecutorService server = Executors.newSingleThreadExecutor();
+    AtomicInteger calls = new AtomicInteger();
+    OpenLoopDriver driver = new OpenLoopDriver(1000);
+    driver.add("read", ArrivalSchedule.constant(100), () -> CompletableFuture.supplyAsync(() -> {
+      if (calls.getAndIncrement() == 0) {
+        sleep(300);
+      }
+      return true;
+    }, server));
+
+    // When
+    Map<String, Result> results = driver.run(Duration.ZERO, Duration.ofMillis(500),
+        Duration.ofSeconds(5));
+    server.shutdown();
+
+    // Then
+    Result read = results.get("read");
+    assertEquals(50, read.requests());
+    assertEquals(50, read.succeeded());
+    assertTrue(read.percentile(90).compareTo(Duration.ofMillis(200)) >= 0,
+        "requests queued behind the stall should carry its latency: " + read.percentile(90));
+  }
+
+  @Test
+  public void run_WithWarmup_ShouldSendButNotRecordWarmupRequests() {
+    // Given
+    AtomicInteger calls = new AtomicInteger();
+    OpenLoopDriver driver = new OpenLoopDriver(1000);
+    driver.add("read", ArrivalSchedule.constant(100), () -> {
+      calls.incrementAndGet();
+      return CompletableFuture.completedFuture(true);
+    });
+
+    // When
+    Map<String, Result> results = driver.run(Duration.ofMillis(100), Duration.ofMillis(100),
+        Duration.ofSeconds(1));
+
+    // Then
+    assertEquals(20, calls.get());
+    assertEquals(10, results.get("read").requests());
+  }
+
+  @Test
+  public void run_OverMaxInFlight_ShouldDropArrivalsAndFailOutstandingRequests() {
+    // Given
+    OpenLoopDriver driver = new OpenLoopDriver(1);
+    driver.add("write", ArrivalSchedule.bursts(10, 1000, Duration.ofSeconds(1)),
+        CompletableFuture::new);
+
+    // When
+    Map<String, Result> results = driver.run(Duration.ZERO, Duration.ofMillis(100),
+        Duration.ofMillis(200));
+
+    // Then
+    Result write = results.get("write");
+    assertEquals(0, write.succeeded());
+    assertEquals(1, write.failed());
+    assertEquals(9, write.dropped());
+    assertEquals(1.0, write.errorRate());
+    // Unanswered and dropped requests count as waiting until the end of the drain
+    assertEquals(10, write.latencies().getTotalCount());
+    assertTrue(write.percentile(0).compareTo(Duration.ofMillis(150)) >= 0,
+        "dropped requests should carry the wait until the run ended: " + write.percentile(0));
+  }
+
+  @Test
+  public void bursts_ShouldRepeatEveryPeriod() {
+    // Given
+    ArrivalSchedule schedule = ArrivalSchedule.bursts(2, 10, Duration.ofSeconds(1));
+
+    // When
+    long[] arrivals = {schedule.nextNanos(), schedule.nextNanos(), schedule.nextNanos(),
+        schedule.nextNanos()};
+
+    // Then
+    assertArrayEquals(new long[] {0, 100_000_000, 1_000_000_000, 1_100_000_000}, arrivals);
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package com.naveen.springboot.journal.loadtest;
+
+import com.naveen.springboot.journal.loadtest.OpenLoopDriver.Result;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pass/fail targets for a run: a p99 latency per stream, a minimum overall throughput of
+ * successful requests and a maximum overall error rate.
+ */
+public class SloGate {
+
+  private final Map<String, Duration> p99Targets = new LinkedHashMap<>();
+  private final double minThroughput;
+  private final double maxErrorRate;
+
+  public SloGate(double minThroughput, double maxErrorRate) {
+    this.minThroughput = minThroughput;
+    this.maxErrorRate = maxErrorRate;
+  }
+
+  public SloGate p99(String stream, Duration target) {
+    p99Targets.put(stream, target);
+    return this;
+  }
+
+  /**
+   * Describes every target the results miss; empty if the run passes.
+   */
+  public List<String> check(Map<String, Result> results) {
+    List<String> violations = new ArrayList<>();
+    for (Map.Entry<String, Duration> target : p99Targets.entrySet()) {
+      Result result = results.get(target.getKey());
+      if (result == null || result.requests() == 0) {
+        violations.add(target.getKey() + ": no requests were measured");
+        continue;
+      }
+      Duration p99 = result.percentile(99);
+      if (p99.compareTo(target.getValue()) > 0) {
+        violations.add(String.format("%s: p99 %s exceeds target %s", target.getKey(),
+            millis(p99), millis(target.getValue())));
+      }
+    }
+
+    double throughput = results.values().stream().mapToDouble(Result::throughput).sum();
+    if (throughput < minThroughput) {
+      violations.add(String.format("throughput %.1f req/s is below target %.1f req/s",
+          throughput, minThroughput));
+    }
+    long requests = results.values().stream().mapToLong(Result::requests).sum();
+    long errors = results.values().stream()
+        .mapToLong(result -> result.failed() + result.dropped())
+        .sum();
+    double errorRate = requests == 0 ? 0 : (double) errors / requests;
+    if (errorRate > maxErrorRate) {
+      violations.add(String.format("error rate %.2f%% exceeds target %.2f%%",
+          errorRate * 100, maxErrorRate * 100));
+    }
+    return violations;
+  }
+
+  static String millis(Duration duration) {
+    return String.format("%.1fms", duration.toNanos() / 1e6);
+  }
+}
@@ -0,0 +1,67 @@
+package com.naveen.springboot.journal.loadtest;
+
+import com.naveen.springboot.journal.loadtest.OpenLoopDriver.Result;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SloGateTests {
+
+  private final SloGate gate = new SloGate(90, 0.01)
+      .p99("read", Duration.ofMillis(50))
+      .p99("users", Duration.ofMillis(500));
+
+  @Test
+  public void check_WithinTargets_ShouldPass() {
+    // Given
+    Map<String, Result> results = Map.of(
+        "read", result("read", 10, 1000, 0),
+        "users", result("users", 200, 10, 0));
+
+    // When
+    List<String> violations = gate.check(results);
+
+    // Then
+    assertTrue(violations.isEmpty(), violations.toString());
+  }
+
+  @Test
+  public void check_SlowAndFailingRun_ShouldReportEveryMissedTarget() {
+    // Given
+    Map<String, Result> results = Map.of(
+        "read", result("read", 80, 800, 200),
+        "users", result("users", 200, 10, 0));
+
+    // When
+    List<String> violations = gate.check(results);
+
+    // Then
+    assertEquals(3, violations.size());
+    assertTrue(violations.get(0).startsWith("read: p99 80.0ms"));
+    assertTrue(violations.get(1).startsWith("throughput 81.0 req/s"));
+    assertTrue(violations.get(2).startsWith("error rate 19.80%"));
+  }
+
+  @Test
+  public void check_StreamWithoutRequests_ShouldFail() {
+    // Given
+    Map<String, Result> results = Map.of("read", result("read", 10, 1000, 0));
+
+    // When
+    List<String> violations = gate.check(results);
+
+    // Then
+    assertEquals(List.of("users: no requests were measured"), violations);
+  }
+
+  private static Result result(String name, long latencyMillis, long succeeded, long failed) {
+    Histogram latencies = new Histogram(3);
+    latencies.recordValueWithCount(Duration.ofMillis(latencyMillis).toNanos(),
+        succeeded + failed);
+    return new Result(name, latencies, succeeded, failed, 0, Duration.ofSeconds(10));
+  }
+}
@@ -0,0 +1,46 @@
+package com.naveen.springboot.journal.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Draws ranks {@code 0..n-1} with probability proportional to {@code 1 / (rank + 1)^exponent},
+ * so a handful of users receive most of the traffic, as they do in production. An exponent of
+ * {@code 0} is uniform.
+ */
+public class ZipfSampler {
+
+  private final double[] cdf;
+
+  public ZipfSampler(int n, double exponent) {
+    if (n <= 0) {
+      throw new IllegalArgumentException("n must be positive");
+    }
+    cdf = new double[n];
+    double sum = 0;
+    for (int rank = 0; rank < n; rank++) {
+      sum += 1 / Math.pow(rank + 1, exponent);
+      cdf[rank] = sum;
+    }
+    for (int rank = 0; rank < n; rank++) {
+      cdf[rank] /= sum;
+    }
+  }
+
+  public int sample() {
+    return sample(ThreadLocalRandom.current().nextDouble());
+  }
+
+  /**
+   * The rank for a uniform draw {@code u} in {@code [0, 1)}.
+   */
+  public int sample(double u) {
+    int index = Arrays.binarySearch(cdf, u);
+    int rank = index >= 0 ? index : -index - 1;
+    return Math.min(rank, cdf.length - 1);
+  }
+
+  public double probability(int rank) {
+    return rank == 0 ? cdf[0] : cdf[rank] - cdf[rank - 1];
+  }
+}
@@ -0,0 +1,191 @@
+package com.naveen.springboot.journal.repository;
+
+import com.naveen.springboot.journal.entity.JournalEntity;
+import com.naveen.springboot.journal.storage.EmbeddedStore;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmbeddedJournalEntryRepositoryTests {
+
+  private static final LocalDateTime NOW = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+  @TempDir
+  private Path dir;
+
+  private EmbeddedStore store;
+  private EmbeddedJournalEntryRepository repository;
+  private ObjectId userId;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    open();
+    userId = new ObjectId();
+  }
+
+  @AfterEach
+  public void tearDown() throws Exception {
+    store.close();
+  }
+
+  @Test
+  public void findByUserIdAndAllTags_ShouldReturnEntriesWithEveryTagNewestFirst() {
+    // Given
+    JournalEntity older = save(entry(userId, 1, NOW.minusDays(2), "work", "travel"));
+    JournalEntity newer = save(entry(userId, 2, NOW, "work", "travel", "food"));
+    save(entry(userId, 3, NOW.minusDays(1), "work"));
+    save(entry(new ObjectId(), 4, NOW, "work", "travel"));
+
+    // When
+    List<JournalEntity> result =
+        repository.findByUserIdAndAllTags(userId, List.of("travel", "work"));
+
+    // Then
+    assertEquals(List.of(newer.getId(), older.getId()), ids(result));
+    assertEquals(List.of(), repository.findByUserIdAndAllTags(userId, List.of("work", "gym")));
+  }
+
+  @Test
+  public void findByUserIdAndAnyTags_ShouldReturnEntriesWithSomeTagNewestFirst() {
+    // Given
+    JournalEntity oldest = save(entry(userId, 1, NOW.minusDays(2), "travel"));
+    JournalEntity newest = save(entry(userId, 2, NOW, "work", "travel"));
+    JournalEntity middle = save(entry(userId, 3, NOW.minusDays(1), "food"));
+    JournalEntity undated = save(entry(userId, 4, null, "work"));
+    save(entry(userId, 5, NOW, "gym"));
+    save(entry(new ObjectId(), 6, NOW, "work"));
+
+    // When
+    List<JournalEntity> result =
+        repository.findByUserIdAndAnyTags(userId, List.of("work", "travel", "food"));
+
+    // Then
+    assertEquals(List.of(newest.getId(), middle.getId(), oldest.getId(), undated.getId()),
+        ids(result));
+  }
+
+  @Test
+  public void findByUserIdAndChangeSeqGreaterThan_ShouldReturnTailInChangeOrder() {
+    // Given
+    JournalEntity first = save(entry(userId, 1, NOW, "a"));
+    JournalEntity second = save(entry(userId, 2, NOW, "a"));
+    JournalEntity third = save(entry(userId, 3, NOW, "a"));
+    save(entry(new ObjectId(), 4, NOW, "a"));
+    // Changing an entry moves it to the end of the feed
+    first.setChangeSeq(5);
+    save(first);
+
+    // When
+    List<JournalEntity> tail = repository.findByUserIdAndChangeSeqGreaterThanOrderByChangeSeqAsc(
+        userId, 1, Limit.unlimited());
+    List<JournalEntity> page = repository.findByUserIdAndChangeSeqGreaterThanOrderByChangeSeqAsc(
+        userId, 2, Limit.of(1));
+
+    // Then
+    assertEquals(List.of(second.getId(), third.getId(), first.getId()), ids(tail));
+    assertEquals(List.of(third.getId()), ids(page));
+    assertEquals(List.of(), repository.findByUserIdAndChangeSeqGreaterThanOrderByChangeSeqAsc(
+        new ObjectId(), 0, Limit.unlimited()));
+    assertEquals(5, repository.maxChangeSeq());
+  }
+
+  @Test
+  public void deleteById_ShouldRemoveEntryFromEveryIndex() {
+    // Given
+    JournalEntity kept = save(entry(userId, 1, NOW, "work"));
+    JournalEntity deleted = save(entry(userId, 2, NOW, "work", "travel"));
+
+    // When
+    repository.deleteById(deleted.getId());
+
+    // Then
+    assertTrue(repository.findById(deleted.getId()).isEmpty());
+    assertEquals(List.of(kept.getId()), ids(repository.findByUserIdAndAnyTags(userId,
+        List.of("work", "travel"))));
+    assertEquals(List.of(kept.getId()), ids(repository
+        .findByUserIdAndChangeSeqGreaterThanOrderByChangeSeqAsc(userId, 0, Limit.unlimited())));
+    assertEquals(Map.of("work", 1L), repository.countTags(userId));
+  }
+
+  @Test
+  public void save_WhenSoftDeleted_ShouldDropTagsButKeepChangeFeed() {
+    // Given
+    JournalEntity kept = save(entry(userId, 1, NOW, "work"));
+    JournalEntity removed = save(entry(userId, 2, NOW, "work", "travel"));
+
+    // When
+    removed.setDeleted(true);
+    removed.setChangeSeq(3);
+    save(removed);
+
+    // Then
+    assertEquals(List.of(kept.getId()), ids(repository.findByUserIdAndAnyTags(userId,
+        List.of("work", "travel"))));
+    assertEquals(Map.of("work", 1L), repository.countTags(userId));
+    assertEquals(List.of(kept.getId()), ids(repository.findByDeletedNot(true)));
+    // Clients still need the tombstone to sync the deletion
+    assertEquals(List.of(removed.getId()), ids(repository
+        .findByUserIdAndChangeSeqGreaterThanOrderByChangeSeqAsc(userId, 1, Limit.unlimited())));
+  }
+
+  @Test
+  public void loadIndexes_AfterReopen_ShouldRebuildIndexesFromStore() throws Exception {
+    // Given
+    JournalEntity older = save(entry(userId, 1, NOW.minusDays(1), "work", "travel"));
+    JournalEntity newer = save(entry(userId, 2, NOW, "work", "travel"));
+    JournalEntity removed = save(entry(userId, 3, NOW, "work"));
+    repository.deleteById(removed.getId());
+    JournalEntity legacy = save(entry(null, 0, NOW, "work"));
+
+    // When
+    store.close();
+    open();
+
+    // Then
+    assertEquals(List.of(newer.getId(), older.getId()), ids(repository
+        .findByUserIdAndAllTags(userId, List.of("work", "travel"))));
+    assertEquals(List.of(older.getId(), newer.getId()), ids(repository
+        .findByUserIdAndChangeSeqGreaterThanOrderByChangeSeqAsc(userId, 0, Limit.unlimited())));
+    assertEquals(Map.of("work", 2L, "travel", 2L), repository.countTags(userId));
+    assertEquals(2, repository.maxChangeSeq());
+    assertTrue(repository.existsByUserIdIsNullAndDeletedNot(true));
+    assertEquals("work", repository.findById(legacy.getId()).orElseThrow().getTags().get(0));
+  }
+
+  private void open() throws Exception {
+    store = new EmbeddedStore(dir, 1 << 20, false, null, 0.5);
+    repository = new EmbeddedJournalEntryRepository();
+    ReflectionTestUtils.setField(repository, "store", store);
+    repository.loadIndexes();
+  }
+
+  private JournalEntity save(JournalEntity journalEntity) {
+    return repository.save(journalEntity);
+  }
+
+  private static JournalEntity entry(ObjectId userId, long changeSeq, LocalDateTime date,
+      String... tags) {
+    JournalEntity journalEntity = new JournalEntity();
+    journalEntity.setTitle("Entry " + changeSeq);
+    journalEntity.setContent("content");
+    journalEntity.setUserId(userId);
+    journalEntity.setChangeSeq(changeSeq);
+    journalEntity.setDate(date);
+    journalEntity.setTags(List.of(tags));
+    return journalEntity;
+  }
+
+  private static List<ObjectId> ids(List<JournalEntity> journalEntities) {
+    return journalEntities.stream().map(JournalEntity::getId).toList();
+  }
+}
@@ -0,0 +1,120 @@
+package com.naveen.springboot.journal.repository;
+
+import com.naveen.springboot.journal.entity.JournalEntity;
+import com.naveen.springboot.journal.entity.User;
+import com.naveen.springboot.journal.storage.EmbeddedStore;
+import java.nio.file.Path;
+import java.util.List;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmbeddedUserRepositoryTests {
+
+  @TempDir
+  private Path dir;
+
+  private EmbeddedStore store;
+  private EmbeddedJournalEntryRepository journalEntryRepository;
+  private EmbeddedUserRepository userRepository;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    open();
+  }
+
+  @AfterEach
+  public void tearDown() throws Exception {
+    store.close();
+  }
+
+  @Test
+  public void save_WhenUserNameIsTaken_ShouldThrowDuplicateKey() {
+    // Given
+    User existing = userRepository.save(user("alice"));
+
+    // When & Then
+    assertThrows(DuplicateKeyException.class, () -> userRepository.save(user("alice")));
+    assertEquals(1, userRepository.findAll().size());
+    existing.setPassword("changed");
+    userRepository.save(existing);
+    assertEquals("changed", userRepository.findByUserName("alice").getPassword());
+  }
+
+  @Test
+  public void save_WhenRenamed_ShouldReleaseOldUserName() {
+    // Given
+    User user = userRepository.save(user("alice"));
+
+    // When
+    user.setUserName("alicia");
+    userRepository.save(user);
+
+    // Then
+    assertNull(userRepository.findByUserName("alice"));
+    assertEquals(user.getId(), userRepository.findByUserName("alicia").getId());
+    assertEquals("alice", userRepository.save(user("alice")).getUserName());
+  }
+
+  @Test
+  public void deleteById_ShouldReleaseUserName() {
+    // Given
+    User user = userRepository.save(user("alice"));
+
+    // When
+    userRepository.deleteById(user.getId());
+
+    // Then
+    assertNull(userRepository.findByUserName("alice"));
+    assertTrue(userRepository.findById(user.getId()).isEmpty());
+    assertNotEquals(user.getId(), userRepository.save(user("alice")).getId());
+  }
+
+  @Test
+  public void loadIndexes_AfterReopen_ShouldFindUsersByNameWithTheirEntries() throws Exception {
+    // Given
+    JournalEntity entry = new JournalEntity();
+    entry.setTitle("Entry");
+    journalEntryRepository.save(entry);
+    User user = user("alice");
+    user.getJournalEntries().add(entry);
+    userRepository.save(user);
+
+    // When
+    store.close();
+    open();
+
+    // Then
+    User reloaded = userRepository.findByUserName("alice");
+    assertEquals(user.getId(), reloaded.getId());
+    assertEquals(List.of(entry.getId()),
+        reloaded.getJournalEntries().stream().map(JournalEntity::getId).toList());
+    assertThrows(DuplicateKeyException.class, () -> userRepository.save(user("alice")));
+  }
+
+  private void open() throws Exception {
+    store = new EmbeddedStore(dir, 1 << 20, false, null, 0.5);
+    journalEntryRepository = new EmbeddedJournalEntryRepository();
+    ReflectionTestUtils.setField(journalEntryRepository, "store", store);
+    journalEntryRepository.loadIndexes();
+    userRepository = new EmbeddedUserRepository();
+    ReflectionTestUtils.setField(userRepository, "store", store);
+    ReflectionTestUtils.setField(userRepository, "journalEntryRepository",
+        journalEntryRepository);
+    userRepository.loadIndexes();
+  }
+
+  private static User user(String userName) {
+    User user = new User();
+    user.setUserName(userName);
+    user.setPassword("password");
+    user.setRoles(List.of("USER"));
+    return user;
+  }
+}
@@ -0,0 +1,99 @@
+package com.naveen.springboot.journal.service;
+
+import com.naveen.springboot.journal.service.AttachmentService.AttachmentTooLargeException;
+import com.naveen.springboot.journal.service.AttachmentService.ByteRange;
+import com.naveen.springboot.journal.service.AttachmentService.MaxSizeInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AttachmentServiceTests {
+
+  @Mock
+  private MongoTemplate mongoTemplate;
+
+  @Mock
+  private MongoDatabaseFactory mongoDatabaseFactory;
+
+  @Mock
+  private UserService userService;
+
+  @Mock
+  private ChangeSequence changeSequence;
+
+  @InjectMocks
+  private AttachmentService attachmentService;
+
+  @Test
+  public void byteRange_WithoutHeader_ShouldReturnNull() {
+    // When & Then
+    assertNull(ByteRange.of(null, 100));
+    assertNull(ByteRange.of("", 100));
+  }
+
+  @Test
+  public void byteRange_ShouldResolveBoundedOpenAndSuffixRanges() {
+    // When & Then
+    assertEquals(new ByteRange(10, 19, 100), ByteRange.of("bytes=10-19", 100));
+    assertEquals(new ByteRange(90, 99, 100), ByteRange.of("bytes=90-", 100));
+    assertEquals(new ByteRange(75, 99, 100), ByteRange.of("bytes=-25", 100));
+    assertEquals(new ByteRange(50, 99, 100), ByteRange.of("bytes=50-500", 100));
+    assertEquals(10, ByteRange.of("bytes=10-19", 100).length());
+  }
+
+  @Test
+  public void byteRange_WithSeveralRanges_ShouldCoalesce() {
+    // When & Then
+    assertEquals(new ByteRange(0, 59, 100), ByteRange.of("bytes=50-59, 0-9", 100));
+  }
+
+  @Test
+  public void byteRange_WhenUnsatisfiableOrMalformed_ShouldThrow() {
+    // When & Then
+    assertThrows(IllegalArgumentException.class, () -> ByteRange.of("bytes=100-", 100));
+    assertThrows(IllegalArgumentException.class, () -> ByteRange.of("bytes=0-1", 0));
+    assertThrows(IllegalArgumentException.class, () -> ByteRange.of("pages=1-2", 100));
+  }
+
+  @Test
+  public void maxSizeInputStream_ShouldCountAndRejectOversizedContent() throws IOException {
+    // Given
+    MaxSizeInputStream withinLimit = new MaxSizeInputStream(
+        new ByteArrayInputStream(new byte[10]), 10);
+    InputStream overLimit = new MaxSizeInputStream(new ByteArrayInputStream(new byte[11]), 10);
+
+    // When
+    withinLimit.readAllBytes();
+
+    // Then
+    assertEquals(10, withinLimit.getCount());
+    assertThrows(AttachmentTooLargeException.class, overLimit::readAllBytes);
+  }
+
+  @Test
+  public void upload_WhenUserNotFound_ShouldStoreNothing() throws IOException {
+    // Given
+    when(userService.findByUserName("missing")).thenReturn(null);
+
+    // When
+    Optional<?> result = attachmentService.upload("missing", new ObjectId(), "a.jpg",
+        "image/jpeg", new ByteArrayInputStream(new byte[1]));
+
+    // Then
+    assertTrue(result.isEmpty());
+    verifyNoInteractions(mongoTemplate, mongoDatabaseFactory, changeSequence);
+  }
+}
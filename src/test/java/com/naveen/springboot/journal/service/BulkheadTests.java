@@ -0,0 +1,142 @@
+package com.naveen.springboot.journal.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkheadTests {
+
+  private final CountDownLatch release = new CountDownLatch(1);
+  private Bulkhead bulkhead;
+
+  @AfterEach
+  public void tearDown() {
+    release.countDown();
+    bulkhead.destroy();
+  }
+
+  @Test
+  public void submit_ShouldRunTaskOnBulkheadThread() throws Exception {
+    // Given
+    bulkhead = new Bulkhead("read", 1, 1, 1, Duration.ofSeconds(5));
+
+    // When
+    String thread = bulkhead.submit(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+
+    // Then
+    assertTrue(thread.startsWith("journal-read-"));
+  }
+
+  @Test
+  public void submit_WhenPoolAndQueueAreFull_ShouldRejectImmediately() {
+    // Given
+    bulkhead = new Bulkhead("write", 1, 1, 1, Duration.ofSeconds(5));
+    bulkhead.submit(this::block);
+    bulkhead.submit(this::block);
+
+    // When
+    CompletableFuture<String> rejected = bulkhead.submit(() -> "never");
+
+    // Then
+    ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+    assertInstanceOf(RejectedExecutionException.class, e.getCause());
+    assertEquals(1, bulkhead.getRejected());
+  }
+
+  @Test
+  public void submit_WhenTaskExceedsTimeout_ShouldCompleteWithTimeout() {
+    // Given
+    bulkhead = new Bulkhead("admin", 1, 1, 1, Duration.ofMillis(50));
+
+    // When
+    CompletableFuture<String> result = bulkhead.submit(this::block);
+
+    // Then
+    ExecutionException e = assertThrows(ExecutionException.class,
+        () -> result.get(5, TimeUnit.SECONDS));
+    assertInstanceOf(TimeoutException.class, e.getCause());
+    assertEquals(1, bulkhead.getTimedOut());
+  }
+
+  @Test
+  public void submit_WhenQueuedTaskTimesOut_ShouldNeverRunIt() throws Exception {
+    // Given
+    bulkhead = new Bulkhead("write", 1, 1, 2, Duration.ofMillis(50));
+    AtomicBoolean ran = new AtomicBoolean();
+    bulkhead.submit(this::blockUninterruptibly);
+
+    // When
+    CompletableFuture<Boolean> queued = bulkhead.submit(() -> ran.getAndSet(true));
+    assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+    release.countDown();
+    bulkhead.submit(() -> true).get(5, TimeUnit.SECONDS);
+
+    // Then
+    assertFalse(ran.get());
+  }
+
+  @Test
+  public void submit_WhenRunningTaskTimesOut_ShouldInterruptIt() throws Exception {
+    // Given
+    bulkhead = new Bulkhead("write", 1, 1, 1, Duration.ofMillis(50));
+    CountDownLatch interrupted = new CountDownLatch(1);
+
+    // When
+    bulkhead.submit(() -> {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        interrupted.countDown();
+      }
+      return "done";
+    });
+
+    // Then
+    assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void bindTo_ShouldRegisterSaturationMetrics() {
+    // Given
+    bulkhead = new Bulkhead("read", 1, 1, 1, Duration.ofSeconds(5));
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    // When
+    bulkhead.bindTo(registry);
+
+    // Then
+    assertNotNull(registry.find("journal.bulkhead.rejected").tag("name", "read").functionCounter());
+    assertNotNull(registry.find("journal.bulkhead.timeouts").tag("name", "read").functionCounter());
+    assertNotNull(registry.find("journal.bulkhead.executor.queued").tag("name", "read").gauge());
+  }
+
+  private String block() {
+    try {
+      release.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return "done";
+  }
+
+  private String blockUninterruptibly() {
+    while (true) {
+      try {
+        release.await();
+        return "done";
+      } catch (InterruptedException e) {
+        // keep holding the thread, like a task that ignores interruption
+      }
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package com.naveen.springboot.journal.service;
+
+import com.naveen.springboot.journal.storage.EmbeddedStore;
+import com.naveen.springboot.journal.storage.EmbeddedTransactionManager;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CommitDeadlineTests {
+
+  @TempDir
+  private Path dir;
+
+  private EmbeddedStore store;
+  private TransactionTemplate transaction;
+  private EmbeddedChangeSequence changeSequence;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    store = new EmbeddedStore(dir, 1 << 20, false, null, 0.5);
+    transaction = new TransactionTemplate(new EmbeddedTransactionManager(store));
+    changeSequence = new EmbeddedChangeSequence();
+    ReflectionTestUtils.setField(changeSequence, "commitDeadline", Duration.ofMillis(200));
+  }
+
+  @AfterEach
+  public void tearDown() throws Exception {
+    store.close();
+  }
+
+  @Test
+  public void reserve_OutsideTransaction_ShouldThrow() {
+    // When & Then
+    assertThrows(IllegalStateException.class, () -> changeSequence.next("journal_entries"));
+  }
+
+  @Test
+  public void commit_WithinDeadline_ShouldApplyWrites() {
+    // Given
+    ObjectId id = new ObjectId();
+
+    // When
+    transaction.executeWithoutResult(status -> {
+      changeSequence.next("journal_entries");
+      store.put(EmbeddedStore.ENTRIES, id, bytes("entry"));
+    });
+
+    // Then
+    assertArrayEquals(bytes("entry"), store.get(EmbeddedStore.ENTRIES, id));
+  }
+
+  @Test
+  public void commit_AfterDeadline_ShouldRollBackSoChangeNeverAppears() {
+    // Given
+    ObjectId id = new ObjectId();
+
+    // When
+    assertThrows(TransactionTimedOutException.class,
+        () -> transaction.executeWithoutResult(status -> {
+          changeSequence.next("journal_entries");
+          store.put(EmbeddedStore.ENTRIES, id, bytes("late entry"));
+          sleep(400);
+        }));
+
+    // Then
+    assertNull(store.get(EmbeddedStore.ENTRIES, id));
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,185 @@
+package com.naveen.springboot.journal.service;
+
+import com.naveen.springboot.journal.entity.Enrichment;
+import com.naveen.springboot.journal.entity.EnrichmentTask;
+import com.naveen.springboot.journal.entity.JournalEntity;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class EnrichmentPipelineTests {
+
+  @Mock
+  private EnrichmentQueue queue;
+
+  @Mock
+  private MongoTemplate mongoTemplate;
+
+  @Mock
+  private ChangeSequence changeSequence;
+
+  @Mock
+  private BulkOperations bulkOperations;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  private EnrichmentPipeline pipeline;
+
+  @BeforeEach
+  public void setUp() {
+    pipeline = new EnrichmentPipeline(queue, new EntryEnricher(), mongoTemplate, changeSequence,
+        new TransactionTemplate(transactionManager), 1, 10, Duration.ofSeconds(1),
+        Duration.ofMinutes(1), 3);
+  }
+
+  @Test
+  public void processBatch_ShouldBulkUpdateLiveEntriesAndCompleteAllTasks() {
+    // Given
+    JournalEntity live = entry("Walked to work");
+    JournalEntity tombstone = entry(null);
+    tombstone.setDeleted(true);
+    List<EnrichmentTask> tasks = List.of(task(live, 1), task(tombstone, 1));
+    when(queue.claim(10, Duration.ofMinutes(1))).thenReturn(tasks);
+    when(mongoTemplate.find(any(Query.class), eq(JournalEntity.class)))
+        .thenReturn(List.of(live, tombstone));
+    when(changeSequence.reserve("journal_entries", 1)).thenReturn(42L);
+    when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, JournalEntity.class))
+        .thenReturn(bulkOperations);
+
+    // When
+    int claimed = pipeline.processBatch();
+
+    // Then
+    assertEquals(2, claimed);
+    ArgumentCaptor<Query> filter = ArgumentCaptor.forClass(Query.class);
+    ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+    verify(bulkOperations, times(1)).updateOne(filter.capture(), update.capture());
+    assertEquals(live.getId(), filter.getValue().getQueryObject().get("_id"));
+    assertEquals(5L, filter.getValue().getQueryObject().get("changeSeq"));
+    assertEquals(42L, update.getValue().getUpdateObject().get("$set", Document.class)
+        .get("changeSeq"));
+    verify(bulkOperations).execute();
+    verify(transactionManager).commit(any());
+    verify(queue).complete(tasks);
+  }
+
+  @Test
+  public void processBatch_WhenWriteFails_ShouldNameEntriesAndLeaveTasksLeased() {
+    // Given
+    JournalEntity live = entry("Walked to work");
+    when(queue.claim(anyInt(), any())).thenReturn(List.of(task(live, 1)));
+    when(mongoTemplate.find(any(Query.class), eq(JournalEntity.class)))
+        .thenThrow(new IllegalStateException("connection reset"));
+
+    // When
+    IllegalStateException e = assertThrows(IllegalStateException.class,
+        () -> pipeline.processBatch());
+
+    // Then
+    assertTrue(e.getMessage().contains(live.getId().toHexString()));
+    verify(queue, never()).complete(any());
+  }
+
+  @Test
+  public void processBatch_WhenOneEntryFails_ShouldWriteOthersAndLeaveOnlyItsTaskLeased() {
+    // Given
+    EntryEnricher enricher = new EntryEnricher() {
+      @Override
+      public Enrichment enrich(JournalEntity journalEntity) {
+        if ("Poison".equals(journalEntity.getContent())) {
+          throw new IllegalArgumentException("unparseable");
+        }
+        return super.enrich(journalEntity);
+      }
+    };
+    pipeline = new EnrichmentPipeline(queue, enricher, mongoTemplate, changeSequence,
+        new TransactionTemplate(transactionManager), 1, 10, Duration.ofSeconds(1),
+        Duration.ofMinutes(1), 3);
+    JournalEntity good = entry("Walked to work");
+    JournalEntity bad = entry("Poison");
+    EnrichmentTask goodTask = task(good, 1);
+    EnrichmentTask badTask = task(bad, 1);
+    when(queue.claim(anyInt(), any())).thenReturn(List.of(goodTask, badTask));
+    when(mongoTemplate.find(any(Query.class), eq(JournalEntity.class)))
+        .thenReturn(List.of(good, bad));
+    when(changeSequence.reserve("journal_entries", 1)).thenReturn(42L);
+    when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, JournalEntity.class))
+        .thenReturn(bulkOperations);
+
+    // When
+    int claimed = pipeline.processBatch();
+
+    // Then
+    assertEquals(2, claimed);
+    ArgumentCaptor<Query> filter = ArgumentCaptor.forClass(Query.class);
+    verify(bulkOperations, times(1)).updateOne(filter.capture(), any(Update.class));
+    assertEquals(good.getId(), filter.getValue().getQueryObject().get("_id"));
+    verify(bulkOperations).execute();
+    verify(queue).complete(List.of(goodTask));
+  }
+
+  @Test
+  public void processBatch_WhenAttemptsExhausted_ShouldDropTaskWithoutLoading() {
+    // Given
+    List<EnrichmentTask> tasks = List.of(task(entry("Poison"), 4));
+    when(queue.claim(anyInt(), any())).thenReturn(tasks);
+
+    // When
+    pipeline.processBatch();
+
+    // Then
+    verify(mongoTemplate, never()).find(any(Query.class), eq(JournalEntity.class));
+    verify(changeSequence, never()).reserve(any(), anyInt());
+    verify(queue).complete(tasks);
+  }
+
+  @Test
+  public void processBatch_WhenQueueEmpty_ShouldReturnZero() {
+    // Given
+    when(queue.claim(anyInt(), any())).thenReturn(List.of());
+
+    // When & Then
+    assertEquals(0, pipeline.processBatch());
+    verifyNoInteractions(mongoTemplate);
+    verify(queue, never()).complete(any());
+  }
+
+  private static JournalEntity entry(String content) {
+    JournalEntity journalEntity = new JournalEntity();
+    journalEntity.setId(new ObjectId());
+    journalEntity.setContent(content);
+    journalEntity.setChangeSeq(5L);
+    return journalEntity;
+  }
+
+  private static EnrichmentTask task(JournalEntity journalEntity, int attempts) {
+    EnrichmentTask task = new EnrichmentTask();
+    task.setId(journalEntity.getId());
+    task.setChangeSeq(journalEntity.getChangeSeq());
+    task.setEnqueuedAt(LocalDateTime.now());
+    task.setAttempts(attempts);
+    return task;
+  }
+}
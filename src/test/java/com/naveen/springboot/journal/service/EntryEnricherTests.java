@@ -0,0 +1,80 @@
+package com.naveen.springboot.journal.service;
+
+import com.naveen.springboot.journal.entity.Enrichment;
+import com.naveen.springboot.journal.entity.JournalEntity;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EntryEnricherTests {
+
+  private final EntryEnricher enricher = new EntryEnricher();
+
+  @Test
+  public void enrich_ShouldCountWordsAndReadingTime() {
+    // Given
+    JournalEntity journalEntity = new JournalEntity();
+    journalEntity.setTitle("Morning run");
+    journalEntity.setContent("word ".repeat(398));
+
+    // When
+    Enrichment enrichment = enricher.enrich(journalEntity);
+
+    // Then
+    assertEquals(400, enrichment.getWordCount());
+    assertEquals(120, enrichment.getReadingTimeSeconds());
+    assertNotNull(enrichment.getEnrichedAt());
+  }
+
+  @Test
+  public void enrich_WithoutText_ShouldReturnEmptyEnrichment() {
+    // Given
+    JournalEntity journalEntity = new JournalEntity();
+
+    // When
+    Enrichment enrichment = enricher.enrich(journalEntity);
+
+    // Then
+    assertEquals(0, enrichment.getWordCount());
+    assertEquals(0, enrichment.getReadingTimeSeconds());
+    assertEquals(EntryEnricher.UNDETERMINED, enrichment.getLanguage());
+    assertTrue(enrichment.getTags().isEmpty());
+  }
+
+  @Test
+  public void detectLanguage_ShouldPickLanguageWithMostFunctionWords() {
+    // When & Then
+    assertEquals("en", EntryEnricher.detectLanguage(
+        List.of("today", "i", "went", "to", "the", "park", "with", "my", "dog")));
+    assertEquals("es", EntryEnricher.detectLanguage(
+        List.of("hoy", "fui", "al", "parque", "con", "el", "perro", "y", "mi", "hermana")));
+    assertEquals("de", EntryEnricher.detectLanguage(
+        List.of("heute", "war", "ich", "mit", "dem", "hund", "im", "park")));
+  }
+
+  @Test
+  public void extractTags_ShouldPreferHashtags() {
+    // Given
+    String text = "Long run by the river #Running #health #running";
+
+    // When
+    List<String> tags = EntryEnricher.extractTags(text, List.of());
+
+    // Then
+    assertEquals(List.of("running", "health"), tags);
+  }
+
+  @Test
+  public void extractTags_WithoutHashtags_ShouldUseRepeatedWords() {
+    // Given
+    List<String> words = List.of("coffee", "with", "anna", "then", "more", "coffee", "and",
+        "work", "work", "work", "with", "with");
+
+    // When
+    List<String> tags = EntryEnricher.extractTags(String.join(" ", words), words);
+
+    // Then
+    assertEquals(List.of("work", "coffee"), tags);
+  }
+}
@@ -0,0 +1,389 @@
+package com.naveen.springboot.journal.service;
+
+import com.naveen.springboot.journal.entity.Attachment;
+import com.naveen.springboot.journal.entity.JournalEntity;
+import com.naveen.springboot.journal.entity.User;
+import com.naveen.springboot.journal.repository.JournalEntryRepository;
+import com.naveen.springboot.journal.service.JournalEntryService.ChangePage;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class JournalEntryServiceTests {
+
+  @Mock
+  private JournalEntryRepository journalEntryRepository;
+
+  @Mock
+  private UserService userService;
+
+  @Mock
+  private ChangeSequence changeSequence;
+
+  @Mock
+  private EnrichmentQueue enrichmentQueue;
+
+  @Mock
+  private AttachmentService attachmentService;
+
+  @Mock
+  private TagCounter tagCounter;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  @InjectMocks
+  private JournalEntryService journalEntryService;
+
+  private User testUser;
+  private JournalEntity testEntry;
+
+  @BeforeEach
+  public void setUp() {
+    ReflectionTestUtils.setField(journalEntryService, "transactionTemplate",
+        new TransactionTemplate(transactionManager));
+    testUser = new User();
+    testUser.setId(new ObjectId());
+    testUser.setUserName("testuser");
+    testUser.setPassword("password123");
+
+    testEntry = new JournalEntity();
+    testEntry.setId(new ObjectId());
+    testEntry.setTitle("Morning");
+    testEntry.setContent("Went for a run");
+    testUser.setJournalEntries(new ArrayList<>(List.of(testEntry)));
+  }
+
+  @Test
+  public void saveEntry_ShouldStampOwnerAndChangeSequenceAndQueueEnrichment() {
+    // Given
+    when(userService.findByUserNameForUpdate("testuser")).thenReturn(testUser);
+    when(changeSequence.next(anyString())).thenReturn(7L);
+    when(journalEntryRepository.save(any(JournalEntity.class))).thenAnswer(i -> i.getArgument(0));
+
+    // When
+    journalEntryService.saveEntry(testEntry, "testuser");
+
+    // Then
+    assertEquals(testUser.getId(), testEntry.getUserId());
+    assertEquals(7L, testEntry.getChangeSeq());
+    assertNotNull(testEntry.getUpdatedAt());
+    verify(enrichmentQueue).enqueue(testEntry);
+  }
+
+  @Test
+  public void saveEntry_WhenTagsChange_ShouldApplyDifferenceToCounts() {
+    // Given
+    JournalEntity stored = new JournalEntity();
+    stored.setTags(List.of("work"));
+    testEntry.setTags(List.of("#Work", "Long Run", "work"));
+    when(userService.findByUserNameForUpdate("testuser")).thenReturn(testUser);
+    when(journalEntryRepository.findById(testEntry.getId())).thenReturn(Optional.of(stored));
+    when(journalEntryRepository.save(any(JournalEntity.class))).thenAnswer(i -> i.getArgument(0));
+
+    // When
+    journalEntryService.saveEntry(testEntry, "testuser");
+
+    // Then
+    assertEquals(List.of("work", "long-run"), testEntry.getTags());
+    verify(tagCounter).apply(testUser.getId(), List.of("work"), List.of("work", "long-run"));
+  }
+
+  @Test
+  public void saveEntry_WhenUpdatingEntry_ShouldListItOnce() {
+    // Given
+    JournalEntity created = new JournalEntity();
+    created.setTitle("Evening");
+    when(userService.findByUserNameForUpdate("testuser")).thenReturn(testUser);
+    when(journalEntryRepository.save(any(JournalEntity.class))).thenAnswer(i -> {
+      JournalEntity saved = i.getArgument(0);
+      if (saved.getId() == null) {
+        saved.setId(new ObjectId());
+      }
+      return saved;
+    });
+    journalEntryService.saveEntry(created, "testuser");
+
+    // When
+    created.setTitle("Late evening");
+    journalEntryService.saveEntry(created, "testuser");
+    testEntry.setContent("Went for a long run");
+    journalEntryService.saveEntry(testEntry, "testuser");
+
+    // Then
+    assertEquals(List.of(testEntry, created),
+        journalEntryService.getJournalEntriesOfUser(testUser));
+  }
+
+  @Test
+  public void normalizeTags_ShouldCleanAndDeduplicate() {
+    // When
+    List<String> tags = JournalEntryService.normalizeTags(
+        Arrays.asList(" #Travel ", "travel", "new.york", "$money", "", null, "a  b"));
+
+    // Then
+    assertEquals(List.of("travel", "newyork", "money", "a-b"), tags);
+    assertEquals(List.of(), JournalEntryService.normalizeTags(null));
+  }
+
+  @Test
+  public void deleteEntityById_ShouldLeaveTombstone() {
+    // Given
+    when(userService.findByUserNameForUpdate("testuser")).thenReturn(testUser);
+    when(journalEntryRepository.findById(testEntry.getId())).thenReturn(Optional.of(testEntry));
+    when(changeSequence.next(anyString())).thenReturn(8L);
+
+    // When
+    journalEntryService.deleteEntityById(testEntry.getId(), "testuser");
+
+    // Then
+    assertTrue(testUser.getJournalEntries().isEmpty());
+    assertTrue(testEntry.isDeleted());
+    assertNull(testEntry.getTitle());
+    assertNull(testEntry.getContent());
+    assertEquals(8L, testEntry.getChangeSeq());
+    verify(journalEntryRepository).save(testEntry);
+    verify(journalEntryRepository, never()).deleteById(any());
+    verifyNoInteractions(attachmentService);
+  }
+
+  @Test
+  public void deleteEntityById_ShouldDeleteAttachmentFiles() {
+    // Given
+    Attachment attachment = new Attachment();
+    attachment.setFileId(new ObjectId());
+    testEntry.setAttachments(new ArrayList<>(List.of(attachment)));
+    when(userService.findByUserNameForUpdate("testuser")).thenReturn(testUser);
+    when(journalEntryRepository.findById(testEntry.getId())).thenReturn(Optional.of(testEntry));
+
+    // When
+    journalEntryService.deleteEntityById(testEntry.getId(), "testuser");
+
+    // Then
+    assertNull(testEntry.getAttachments());
+    verify(attachmentService).deleteFiles(List.of(attachment.getFileId()));
+  }
+
+  @Test
+  public void deleteEntityById_WhenCommitFails_ShouldKeepAttachmentFiles() {
+    // Given
+    Attachment attachment = new Attachment();
+    attachment.setFileId(new ObjectId());
+    testEntry.setAttachments(new ArrayList<>(List.of(attachment)));
+    when(userService.findByUserNameForUpdate("testuser")).thenReturn(testUser);
+    when(journalEntryRepository.findById(testEntry.getId())).thenReturn(Optional.of(testEntry));
+    doThrow(new TransactionSystemException("commit failed")).when(transactionManager).commit(any());
+
+    // When
+    assertThrows(TransactionSystemException.class,
+        () -> journalEntryService.deleteEntityById(testEntry.getId(), "testuser"));
+
+    // Then
+    verifyNoInteractions(attachmentService);
+  }
+
+  @Test
+  public void getJournalEntryById_WhenEntryIsTombstone_ShouldReturnEmpty() {
+    // Given
+    testEntry.setDeleted(true);
+    when(journalEntryRepository.findById(testEntry.getId())).thenReturn(Optional.of(testEntry));
+
+    // When
+    Optional<JournalEntity> result = journalEntryService.getJournalEntryById(testEntry.getId());
+
+    // Then
+    assertFalse(result.isPresent());
+  }
+
+  @Test
+  public void getChangesSince_WhenMoreChangesExist_ShouldReturnPageAndNextToken() {
+    // Given
+    when(userService.findByUserName("testuser")).thenReturn(testUser);
+    when(journalEntryRepository.findByUserIdAndChangeSeqGreaterThanOrderByChangeSeqAsc(
+        testUser.getId(), 10L, Limit.of(3)))
+        .thenReturn(List.of(change(11), change(12), change(13)));
+
+    // When
+    ChangePage page = journalEntryService.getChangesSince("testuser", 10L, 2);
+
+    // Then
+    assertEquals(2, page.changes().size());
+    assertEquals(12L, page.nextToken());
+    assertTrue(page.hasMore());
+    assertEquals(0, page.retryAfterSeconds());
+  }
+
+  @Test
+  public void getChangesSince_ShouldHoldBackChangesYoungerThanSettleTime() {
+    // Given
+    JournalEntity recent = change(12);
+    recent.setUpdatedAt(LocalDateTime.now());
+    when(userService.findByUserName("testuser")).thenReturn(testUser);
+    when(journalEntryRepository.findByUserIdAndChangeSeqGreaterThanOrderByChangeSeqAsc(
+        testUser.getId(), 10L, Limit.of(101)))
+        .thenReturn(List.of(change(11), recent, change(13)));
+
+    // When
+    ChangePage page = journalEntryService.getChangesSince("testuser", 10L, 100);
+
+    // Then
+    assertEquals(1, page.changes().size());
+    assertEquals(11L, page.nextToken());
+    // Asking again straight away would return the same page, so no hasMore
+    assertFalse(page.hasMore());
+    assertTrue(page.retryAfterSeconds() > 0 && page.retryAfterSeconds() <= 12,
+        "retry after " + page.retryAfterSeconds());
+  }
+
+  @Test
+  public void getChangesSince_WhenOnlyUnsettledChangesFollowFullPage_ShouldNotReportMore() {
+    // Given
+    JournalEntity recent = change(13);
+    recent.setUpdatedAt(LocalDateTime.now());
+    when(userService.findByUserName("testuser")).thenReturn(testUser);
+    when(journalEntryRepository.findByUserIdAndChangeSeqGreaterThanOrderByChangeSeqAsc(
+        testUser.getId(), 10L, Limit.of(3)))
+        .thenReturn(List.of(change(11), change(12), recent));
+
+    // When
+    ChangePage page = journalEntryService.getChangesSince("testuser", 10L, 2);
+
+    // Then
+    assertEquals(12L, page.nextToken());
+    assertFalse(page.hasMore());
+    assertTrue(page.retryAfterSeconds() > 0);
+  }
+
+  @Test
+  public void getChangesSince_ShouldHoldBackChangesYoungerThanCommitBound() {
+    // Given
+    ReflectionTestUtils.setField(journalEntryService, "syncSettleTime", Duration.ofSeconds(1));
+    JournalEntity slow = change(11);
+    slow.setUpdatedAt(LocalDateTime.now().minusSeconds(5));
+    when(userService.findByUserName("testuser")).thenReturn(testUser);
+    when(journalEntryRepository.findByUserIdAndChangeSeqGreaterThanOrderByChangeSeqAsc(
+        testUser.getId(), 10L, Limit.of(101)))
+        .thenReturn(List.of(slow));
+
+    // When
+    ChangePage page = journalEntryService.getChangesSince("testuser", 10L, 100);
+
+    // Then
+    assertTrue(page.changes().isEmpty());
+    assertEquals(10L, page.nextToken());
+  }
+
+  @Test
+  public void getJournalEntriesOfUser_ShouldReturnOnlyTheUsersLiveEntries() {
+    // Given
+    JournalEntity tombstone = change(7);
+    tombstone.setDeleted(true);
+    testUser.setJournalEntries(new ArrayList<>(List.of(testEntry, tombstone)));
+
+    // When
+    List<JournalEntity> result = journalEntryService.getJournalEntriesOfUser(testUser);
+
+    // Then
+    assertEquals(List.of(testEntry), result);
+    verifyNoInteractions(journalEntryRepository);
+  }
+
+  @Test
+  public void backfillChangeTracking_ShouldStampOwnerAndSequenceOnLegacyEntries() {
+    // Given
+    JournalEntity legacy = new JournalEntity();
+    legacy.setId(new ObjectId());
+    JournalEntity tracked = change(5);
+    testUser.setJournalEntries(new ArrayList<>(List.of(legacy, tracked)));
+    when(journalEntryRepository.existsByUserIdIsNullAndDeletedNot(true)).thenReturn(true);
+    when(userService.getAll()).thenReturn(List.of(testUser));
+    when(changeSequence.next("journal_entries")).thenReturn(42L);
+
+    // When
+    int backfilled = journalEntryService.backfillChangeTracking();
+
+    // Then
+    assertEquals(1, backfilled);
+    assertEquals(testUser.getId(), legacy.getUserId());
+    assertEquals(42L, legacy.getChangeSeq());
+    assertNotNull(legacy.getUpdatedAt());
+    verify(journalEntryRepository).save(legacy);
+    verify(journalEntryRepository, never()).save(tracked);
+  }
+
+  @Test
+  public void backfillChangeTracking_WhenEntryHasNoOwner_ShouldMarkItDeleted() {
+    // Given
+    JournalEntity orphan = new JournalEntity();
+    orphan.setId(new ObjectId());
+    orphan.setContent("Nobody points here");
+    testUser.setJournalEntries(new ArrayList<>());
+    when(journalEntryRepository.existsByUserIdIsNullAndDeletedNot(true)).thenReturn(true);
+    when(userService.getAll()).thenReturn(List.of(testUser));
+    when(journalEntryRepository.findByUserIdIsNullAndDeletedNot(true))
+        .thenReturn(List.of(orphan));
+    when(changeSequence.next("journal_entries")).thenReturn(43L);
+
+    // When
+    int backfilled = journalEntryService.backfillChangeTracking();
+
+    // Then
+    assertEquals(1, backfilled);
+    assertTrue(orphan.isDeleted());
+    assertEquals(43L, orphan.getChangeSeq());
+    assertEquals("Nobody points here", orphan.getContent());
+    verify(journalEntryRepository).save(orphan);
+  }
+
+  @Test
+  public void backfillChangeTracking_WhenNothingIsMissing_ShouldNotLoadUsers() {
+    // Given
+    when(journalEntryRepository.existsByUserIdIsNullAndDeletedNot(true)).thenReturn(false);
+
+    // When
+    int backfilled = journalEntryService.backfillChangeTracking();
+
+    // Then
+    assertEquals(0, backfilled);
+    verifyNoInteractions(userService);
+  }
+
+  @Test
+  public void getChangesSince_WhenUserDoesNotExist_ShouldReturnNull() {
+    // Given
+    when(userService.findByUserName("nonexistentuser")).thenReturn(null);
+
+    // When & Then
+    assertNull(journalEntryService.getChangesSince("nonexistentuser", 0L, 100));
+  }
+
+  private JournalEntity change(long changeSeq) {
+    JournalEntity journalEntity = new JournalEntity();
+    journalEntity.setId(new ObjectId());
+    journalEntity.setUserId(testUser.getId());
+    journalEntity.setChangeSeq(changeSeq);
+    journalEntity.setUpdatedAt(LocalDateTime.now().minusMinutes(1));
+    return journalEntity;
+  }
+}
@@ -0,0 +1,110 @@
+package com.naveen.springboot.journal.service;
+
+import com.naveen.springboot.journal.entity.TagCounts;
+import com.naveen.springboot.journal.service.TagCounter.TagCount;
+import java.util.List;
+import java.util.Map;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MongoTagCounterTests {
+
+  @Mock
+  private MongoTemplate mongoTemplate;
+
+  @InjectMocks
+  private MongoTagCounter tagCounter;
+
+  private final ObjectId userId = new ObjectId();
+
+  @Test
+  public void apply_ShouldIncrementOnlyTheDifference() {
+    // Given
+    when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+        any(FindAndModifyOptions.class), eq(TagCounts.class))).thenReturn(counts(Map.of(
+            "work", 3L, "travel", 1L, "home", 2L)));
+
+    // When
+    tagCounter.apply(userId, List.of("work", "home"), List.of("work", "travel"));
+
+    // Then
+    ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+    verify(mongoTemplate).findAndModify(any(Query.class), update.capture(),
+        any(FindAndModifyOptions.class), eq(TagCounts.class));
+    assertEquals(new Document("counts.travel", 1L).append("counts.home", -1L),
+        update.getValue().getUpdateObject().get("$inc"));
+    verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class),
+        eq(TagCounts.class));
+  }
+
+  @Test
+  public void apply_WhenCountDropsToZero_ShouldRemoveTagOnlyIfStillZero() {
+    // Given
+    when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+        any(FindAndModifyOptions.class), eq(TagCounts.class)))
+        .thenReturn(counts(Map.of("home", 0L, "work", 0L, "travel", 2L)));
+
+    // When
+    tagCounter.apply(userId, List.of("home", "work", "travel"), null);
+
+    // Then
+    ArgumentCaptor<Query> filter = ArgumentCaptor.forClass(Query.class);
+    ArgumentCaptor<Update> prune = ArgumentCaptor.forClass(Update.class);
+    verify(mongoTemplate, times(2)).updateFirst(filter.capture(), prune.capture(),
+        eq(TagCounts.class));
+    for (int i = 0; i < 2; i++) {
+      String field = prune.getAllValues().get(i).getUpdateObject().get("$unset", Document.class)
+          .keySet().iterator().next();
+      assertTrue(field.equals("counts.home") || field.equals("counts.work"));
+      assertEquals(new Document("$lte", 0), filter.getAllValues().get(i).getQueryObject()
+          .get(field));
+    }
+  }
+
+  @Test
+  public void apply_WhenTagsUnchanged_ShouldNotWrite() {
+    // When
+    tagCounter.apply(userId, List.of("work"), List.of("work"));
+
+    // Then
+    verifyNoInteractions(mongoTemplate);
+  }
+
+  @Test
+  public void counts_ShouldSortByCountThenTagAndSkipEmpty() {
+    // Given
+    when(mongoTemplate.findOne(any(Query.class), eq(TagCounts.class))).thenReturn(counts(Map.of(
+        "work", 3L, "travel", 5L, "home", 3L, "gone", 0L)));
+
+    // When
+    List<TagCount> result = tagCounter.counts(userId, 10);
+
+    // Then
+    assertEquals(List.of(new TagCount("travel", 5), new TagCount("home", 3),
+        new TagCount("work", 3)), result);
+    assertEquals(1, tagCounter.counts(userId, 1).size());
+  }
+
+  private TagCounts counts(Map<String, Long> counts) {
+    TagCounts tagCounts = new TagCounts();
+    tagCounts.setId(userId);
+    tagCounts.setCounts(counts);
+    return tagCounts;
+  }
+}
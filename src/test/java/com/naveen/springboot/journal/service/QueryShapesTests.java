@@ -0,0 +1,128 @@
+package com.naveen.springboot.journal.service;
+
+import java.util.List;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QueryShapesTests {
+
+  @Test
+  public void normalize_ShouldReplaceLiteralsAndDropSessionFields() {
+    // Given
+    BsonDocument first = BsonDocument.parse("{find: 'journal_entries',"
+        + " filter: {userId: {$oid: '65f1c0c0c0c0c0c0c0c0c0c0'}, changeSeq: {$gt: 10}},"
+        + " sort: {changeSeq: 1}, limit: 101, $db: 'journaldb', lsid: {id: 1}}");
+    BsonDocument second = BsonDocument.parse("{find: 'journal_entries',"
+        + " filter: {userId: {$oid: '65f1c0c0c0c0c0c0c0c0c0c1'}, changeSeq: {$gt: 99}},"
+        + " sort: {changeSeq: 1}, limit: 11, $db: 'journaldb', lsid: {id: 2}}");
+
+    // When
+    BsonDocument shape = QueryShapes.normalize(first);
+
+    // Then
+    assertEquals(BsonDocument.parse("{find: 'journal_entries',"
+        + " filter: {userId: '?', changeSeq: {$gt: '?'}}, sort: {changeSeq: 1}, limit: '?'}"),
+        shape);
+    assertEquals(shape, QueryShapes.normalize(second));
+  }
+
+  @Test
+  public void normalize_ShouldCollapseInListsAndKeepFirstStatement() {
+    // Given
+    BsonDocument command = BsonDocument.parse("{update: 'users', updates: ["
+        + "{q: {_id: {$in: [1, 2, 3]}}, u: {$set: {password: 'a'}}},"
+        + "{q: {_id: {$in: [4]}}, u: {$set: {password: 'b'}}}]}");
+
+    // When
+    BsonDocument shape = QueryShapes.normalize(command);
+
+    // Then
+    assertEquals(BsonDocument.parse("{update: 'users',"
+        + " updates: [{q: {_id: {$in: ['?']}}, u: {$set: {password: '?'}}}]}"), shape);
+  }
+
+  @Test
+  public void normalize_UserSavesWithDifferentEntryCounts_ShouldShareShape() {
+    // Given
+    BsonDocument oneEntry = BsonDocument.parse("{update: 'users', updates: [{"
+        + "q: {_id: {$oid: '65f1c0c0c0c0c0c0c0c0c0c0'}},"
+        + " u: {userName: 'alice', roles: ['USER'], journalEntries: ["
+        + "{$ref: 'journal_entries', $id: {$oid: '65f1c0c0c0c0c0c0c0c0c0d0'}}]},"
+        + " upsert: true}]}");
+    BsonDocument threeEntries = BsonDocument.parse("{update: 'users', updates: [{"
+        + "q: {_id: {$oid: '65f1c0c0c0c0c0c0c0c0c0c1'}},"
+        + " u: {userName: 'bob', roles: ['USER', 'ADMIN'], journalEntries: ["
+        + "{$ref: 'journal_entries', $id: {$oid: '65f1c0c0c0c0c0c0c0c0c0d1'}},"
+        + "{$ref: 'journal_entries', $id: {$oid: '65f1c0c0c0c0c0c0c0c0c0d2'}},"
+        + "{$ref: 'journal_entries', $id: {$oid: '65f1c0c0c0c0c0c0c0c0c0d3'}}]},"
+        + " upsert: true}]}");
+
+    // When
+    BsonDocument shape = QueryShapes.normalize(oneEntry);
+
+    // Then
+    assertEquals(shape, QueryShapes.normalize(threeEntries));
+    assertEquals(BsonDocument.parse("{update: 'users', updates: [{q: {_id: '?'},"
+        + " u: {userName: '?', roles: ['?'], journalEntries: ['?']}, upsert: '?'}]}"), shape);
+  }
+
+  @Test
+  public void normalize_ShouldKeepClausesOfLogicalOperators() {
+    // Given
+    BsonDocument command = BsonDocument.parse("{find: 'journal_entries',"
+        + " filter: {$or: [{title: 'a'}, {tags: {$in: ['x', 'y']}}]}}");
+
+    // When
+    BsonDocument shape = QueryShapes.normalize(command);
+
+    // Then
+    assertEquals(BsonDocument.parse("{find: 'journal_entries',"
+        + " filter: {$or: [{title: '?'}, {tags: {$in: ['?']}}]}}"), shape);
+  }
+
+  @Test
+  public void suggestIndex_ShouldOrderEqualitySortRange() {
+    // Given
+    BsonDocument command = BsonDocument.parse("{find: 'journal_entries',"
+        + " filter: {date: {$gte: 1}, userId: 5}, sort: {title: -1}}");
+
+    // When
+    BsonDocument index = QueryShapes.suggestIndex(command);
+
+    // Then
+    assertEquals(BsonDocument.parse("{userId: 1, title: -1, date: 1}"), index);
+    assertEquals(List.of("userId", "title", "date"), List.copyOf(index.keySet()));
+  }
+
+  @Test
+  public void suggestIndex_ForAggregate_ShouldUseMatchAndSortStages() {
+    // Given
+    BsonDocument command = BsonDocument.parse("{aggregate: 'test',"
+        + " pipeline: [{$match: {status: 'A'}}, {$sort: {date: 1}}, {$group: {_id: 1}}]}");
+
+    // When & Then
+    assertEquals(BsonDocument.parse("{status: 1, date: 1}"), QueryShapes.suggestIndex(command));
+  }
+
+  @Test
+  public void suggestIndex_WithoutFilterOrSort_ShouldReturnNull() {
+    // Given
+    BsonDocument command = BsonDocument.parse("{aggregate: 'test',"
+        + " pipeline: [{$match: {}}, {$group: {_id: 1, n: {$sum: 1}}}]}");
+
+    // When & Then
+    assertNull(QueryShapes.suggestIndex(command));
+  }
+
+  @Test
+  public void planStages_ShouldCollectWinningPlanStages() {
+    // Given
+    BsonDocument explain = BsonDocument.parse("{queryPlanner: {winningPlan: {stage: 'SORT',"
+        + " inputStage: {stage: 'COLLSCAN'}}, rejectedPlans: [{stage: 'IXSCAN'}]}}");
+
+    // When & Then
+    assertEquals(List.of("SORT", "COLLSCAN"), QueryShapes.planStages(explain));
+  }
+}
@@ -0,0 +1,194 @@
+package com.naveen.springboot.journal.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTests {
+
+  private static final int WAITERS = 8;
+
+  private SingleFlight<String, String> singleFlight;
+  private ExecutorService executor;
+
+  @BeforeEach
+  public void setUp() {
+    singleFlight = new SingleFlight<>("test");
+    executor = Executors.newFixedThreadPool(WAITERS + 1);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void execute_WhenCallsOverlap_ShouldLoadOnceAndShareResult() throws Exception {
+    // Given
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger loads = new AtomicInteger();
+
+    // When
+    List<Future<String>> results = submitConcurrent(() -> {
+      loads.incrementAndGet();
+      await(release);
+      return "value";
+    });
+    waitForSaved(WAITERS);
+    release.countDown();
+
+    // Then
+    for (Future<String> result : results) {
+      assertEquals("value", result.get(5, TimeUnit.SECONDS));
+    }
+    assertEquals(1, loads.get());
+    assertEquals(WAITERS + 1, singleFlight.getCalls());
+    assertEquals(WAITERS, singleFlight.getSaved());
+    assertEquals(0, singleFlight.getInFlight());
+  }
+
+  @Test
+  public void execute_WhenLoaderThrows_ShouldPropagateToAllWaiters() throws Exception {
+    // Given
+    CountDownLatch release = new CountDownLatch(1);
+
+    // When
+    List<Future<String>> results = submitConcurrent(() -> {
+      await(release);
+      throw new IllegalStateException("Database error");
+    });
+    waitForSaved(WAITERS);
+    release.countDown();
+
+    // Then
+    for (Future<String> result : results) {
+      Exception e = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+      assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+    assertEquals(0, singleFlight.getInFlight());
+  }
+
+  @Test
+  public void execute_AfterCallCompletes_ShouldLoadAgain() {
+    // Given
+    AtomicInteger loads = new AtomicInteger();
+
+    // When
+    singleFlight.execute("key", () -> "value" + loads.incrementAndGet());
+    String second = singleFlight.execute("key", () -> "value" + loads.incrementAndGet());
+
+    // Then
+    assertEquals("value2", second);
+    assertEquals(0, singleFlight.getSaved());
+  }
+
+  @Test
+  public void execute_WhenWaiterIsInterrupted_ShouldNotAffectSharedCall() throws Exception {
+    // Given
+    CountDownLatch release = new CountDownLatch(1);
+    Future<String> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+      await(release);
+      return "value";
+    }));
+    waitForInFlight();
+    Future<String> waiter = executor.submit(() -> singleFlight.execute("key", () -> "other"));
+    waitForSaved(1);
+
+    // When
+    waiter.cancel(true);
+    release.countDown();
+
+    // Then
+    assertEquals("value", leader.get(5, TimeUnit.SECONDS));
+    assertEquals(0, singleFlight.getInFlight());
+  }
+
+  @Test
+  public void execute_WhenLeaderIsCancelled_ShouldLetWaitersRetry() throws Exception {
+    // Given
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger loads = new AtomicInteger();
+    List<Future<String>> results = submitConcurrent(() -> {
+      loads.incrementAndGet();
+      await(release);
+      return "value";
+    });
+    waitForSaved(WAITERS);
+
+    // When
+    results.get(0).cancel(true);
+    waitForLoads(loads, 2);
+    release.countDown();
+
+    // Then
+    for (Future<String> waiter : results.subList(1, results.size())) {
+      assertEquals("value", waiter.get(5, TimeUnit.SECONDS));
+    }
+    assertTrue(loads.get() >= 2);
+    assertEquals(WAITERS, singleFlight.getSaved());
+    assertEquals(0, singleFlight.getInFlight());
+  }
+
+  @Test
+  public void execute_WithNullKey_ShouldBypassCoalescing() {
+    // When
+    String result = singleFlight.execute(null, () -> null);
+
+    // Then
+    assertNull(result);
+    assertEquals(0, singleFlight.getInFlight());
+  }
+
+  private List<Future<String>> submitConcurrent(Supplier<String> loader)
+      throws InterruptedException {
+    List<Future<String>> results = new ArrayList<>();
+    results.add(executor.submit(() -> singleFlight.execute("key", loader)));
+    waitForInFlight();
+    for (int i = 0; i < WAITERS; i++) {
+      results.add(executor.submit(() -> singleFlight.execute("key", loader)));
+    }
+    return results;
+  }
+
+  private void waitForInFlight() throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (singleFlight.getInFlight() == 0 && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+  }
+
+  private static void waitForLoads(AtomicInteger loads, int expected)
+      throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (loads.get() < expected && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+  }
+
+  private void waitForSaved(int expected) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (singleFlight.getSaved() < expected && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+  }
+}
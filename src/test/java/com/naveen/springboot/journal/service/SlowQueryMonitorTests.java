@@ -0,0 +1,107 @@
+package com.naveen.springboot.journal.service;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.client.MongoClient;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SlowQueryMonitorTests {
+
+  private static final ConnectionDescription CONNECTION =
+      new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress()));
+
+  @Mock
+  private ObjectProvider<MongoClient> mongoClient;
+
+  private SlowQueryMonitor monitor;
+
+  @BeforeEach
+  public void setUp() {
+    monitor = new SlowQueryMonitor(mongoClient, Duration.ofMillis(100), 1.0, 10);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    monitor.destroy();
+  }
+
+  @Test
+  public void commandStarted_WithUpdate_ShouldKeepShapeButNotWrittenValues() {
+    // Given
+    BsonDocument command = BsonDocument.parse("{update: 'journal_entries', updates: ["
+        + "{q: {_id: 1, changeSeq: 5}, u: {title: 'Morning', content: 'Went for a run'},"
+        + " upsert: true}, {q: {_id: 2}, u: {content: 'Second'}}],"
+        + " $db: 'journaldb', lsid: {id: 1}, txnNumber: 3}");
+
+    // When
+    monitor.commandStarted(started(1, "update", command));
+
+    // Then
+    Map<Integer, ?> started = startedCommands();
+    RawBsonDocument kept = (RawBsonDocument) ReflectionTestUtils.invokeMethod(started.get(1),
+        "command");
+    assertEquals(BsonDocument.parse("{update: 'journal_entries', updates: ["
+        + "{q: {_id: 1, changeSeq: 5}, u: {title: '?', content: '?'}, upsert: true}]}"),
+        kept.decode(new BsonDocumentCodec()));
+  }
+
+  @Test
+  public void commandSucceeded_ShouldRecordOnlyCommandsAboveThresholdByShape() {
+    // Given
+    BsonDocument command = BsonDocument.parse("{find: 'journal_entries',"
+        + " filter: {userId: 7, changeSeq: {$gt: 10}}, sort: {changeSeq: 1}, $db: 'journaldb'}");
+    monitor.commandStarted(started(1, "find", command));
+    monitor.commandStarted(started(2, "find", command));
+
+    // When
+    monitor.commandSucceeded(succeeded(1, "find", Duration.ofMillis(250)));
+    monitor.commandSucceeded(succeeded(2, "find", Duration.ofMillis(5)));
+
+    // Then
+    List<SlowQueryMonitor.SlowQueryShape> shapes = monitor.topShapes(10);
+    assertEquals(1, shapes.size());
+    assertEquals("journaldb.journal_entries", shapes.get(0).namespace());
+    assertEquals(1, shapes.get(0).count());
+    assertEquals(BsonDocument.parse("{find: 'journal_entries',"
+        + " filter: {userId: '?', changeSeq: {$gt: '?'}}, sort: {changeSeq: 1}}"),
+        BsonDocument.parse(shapes.get(0).shape()));
+    assertTrue(startedCommands().isEmpty());
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<Integer, ?> startedCommands() {
+    return (Map<Integer, ?>) ReflectionTestUtils.getField(monitor, "started");
+  }
+
+  private static CommandStartedEvent started(int requestId, String commandName,
+      BsonDocument command) {
+    return new CommandStartedEvent(null, 1, requestId, CONNECTION, "journaldb", commandName,
+        command);
+  }
+
+  private static CommandSucceededEvent succeeded(int requestId, String commandName,
+      Duration elapsed) {
+    return new CommandSucceededEvent(null, 1, requestId, CONNECTION, "journaldb", commandName,
+        new BsonDocument(), elapsed.toNanos());
+  }
+}
@@ -0,0 +1,114 @@
+package com.naveen.springboot.journal.service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotFileTests {
+
+  @TempDir
+  private Path dir;
+
+  @Test
+  public void readNext_AfterWrite_ShouldReturnRecordsInOrder() throws Exception {
+    // Given
+    Path file = dir.resolve("user.jsnp");
+    RawBsonDocument user = document("userName", "testuser");
+    RawBsonDocument entry = document("title", "Morning");
+    // Larger than the staging buffer to exercise the direct write path
+    RawBsonDocument large = document("content", "x".repeat(SnapshotWriter.BUFFER_BYTES + 10));
+    try (SnapshotWriter writer = new SnapshotWriter(file)) {
+      writer.writeUser(user.getByteBuffer().asNIO());
+      writer.writeEntry(entry.getByteBuffer().asNIO());
+      writer.writeEntry(large.getByteBuffer().asNIO());
+      writer.finish();
+    }
+
+    // When
+    try (SnapshotReader reader = new SnapshotReader(file)) {
+      SnapshotReader.Record first = reader.next();
+      SnapshotReader.Record second = reader.next();
+      SnapshotReader.Record third = reader.next();
+
+      // Then
+      assertEquals(SnapshotWriter.USER, first.type());
+      assertEquals(user, new RawBsonDocument(first.payload()));
+      assertEquals(SnapshotWriter.ENTRY, second.type());
+      assertEquals(entry, new RawBsonDocument(second.payload()));
+      assertEquals(large, new RawBsonDocument(third.payload()));
+      assertNull(reader.next());
+      assertEquals(1, reader.getUsers());
+      assertEquals(2, reader.getEntries());
+    }
+  }
+
+  @Test
+  public void readNext_WhenPayloadIsCorrupted_ShouldThrow() throws Exception {
+    // Given
+    Path file = writeSingleEntry();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      int payloadStart = SnapshotWriter.HEADER_BYTES + SnapshotWriter.RECORD_HEADER_BYTES;
+      channel.write(ByteBuffer.wrap(new byte[] {'?'}), payloadStart + 10);
+    }
+
+    // When & Then
+    try (SnapshotReader reader = new SnapshotReader(file)) {
+      IOException e = assertThrows(IOException.class, reader::next);
+      assertTrue(e.getMessage().contains("checksum"));
+    }
+  }
+
+  @Test
+  public void readNext_WhenFileIsTruncated_ShouldThrow() throws Exception {
+    // Given
+    Path file = writeSingleEntry();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - 4);
+    }
+
+    // When & Then
+    try (SnapshotReader reader = new SnapshotReader(file)) {
+      reader.next();
+      assertThrows(EOFException.class, reader::next);
+    }
+  }
+
+  @Test
+  public void open_WhenFileIsNotASnapshot_ShouldThrow() throws Exception {
+    // Given
+    Path file = dir.resolve("other.bin");
+    Files.write(file, new byte[32]);
+
+    // When & Then
+    assertThrows(IOException.class, () -> new SnapshotReader(file));
+  }
+
+  private Path writeSingleEntry() throws IOException {
+    Path file = dir.resolve("entry.jsnp");
+    try (SnapshotWriter writer = new SnapshotWriter(file)) {
+      writer.writeEntry(document("title", "Evening").getByteBuffer().asNIO());
+      writer.finish();
+    }
+    return file;
+  }
+
+  private static RawBsonDocument document(String key, String value) {
+    BsonDocument document = new BsonDocument("_id", new BsonObjectId(new ObjectId()))
+        .append(key, new BsonString(value));
+    return new RawBsonDocument(document, new BsonDocumentCodec());
+  }
+}
@@ -0,0 +1,302 @@
+package com.naveen.springboot.journal.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmbeddedStoreTests {
+
+  private static final long SEGMENT_SIZE = 4096;
+
+  @TempDir
+  private Path dir;
+
+  @Test
+  public void get_AfterReopen_ShouldReturnLatestPayload() throws Exception {
+    // Given
+    ObjectId kept = new ObjectId();
+    ObjectId deleted = new ObjectId();
+    try (EmbeddedStore store = open()) {
+      store.put(EmbeddedStore.ENTRIES, kept, bytes("first"));
+      store.put(EmbeddedStore.ENTRIES, kept, bytes("second"));
+      store.put(EmbeddedStore.ENTRIES, deleted, bytes("gone"));
+      store.delete(EmbeddedStore.ENTRIES, deleted);
+    }
+
+    // When
+    try (EmbeddedStore store = open()) {
+
+      // Then
+      assertArrayEquals(bytes("second"), store.get(EmbeddedStore.ENTRIES, kept));
+      assertNull(store.get(EmbeddedStore.ENTRIES, deleted));
+      assertNull(store.get(EmbeddedStore.USERS, kept));
+      assertEquals(1, store.size(EmbeddedStore.ENTRIES));
+    }
+  }
+
+  @Test
+  public void open_WhenTailBatchIsTorn_ShouldDropOnlyThatBatch() throws Exception {
+    // Given
+    ObjectId first = new ObjectId();
+    ObjectId second = new ObjectId();
+    try (EmbeddedStore store = open()) {
+      store.put(EmbeddedStore.ENTRIES, first, bytes("complete"));
+      store.put(EmbeddedStore.ENTRIES, second, bytes("torn"));
+    }
+    // Lose the checkpoint so the log is replayed, then tear the last batch
+    Files.delete(dir.resolve("entries.idx"));
+    Path segment = dir.resolve("segment-000001.log");
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - 2);
+    }
+
+    // When
+    try (EmbeddedStore store = open()) {
+
+      // Then
+      assertArrayEquals(bytes("complete"), store.get(EmbeddedStore.ENTRIES, first));
+      assertNull(store.get(EmbeddedStore.ENTRIES, second));
+      store.put(EmbeddedStore.ENTRIES, second, bytes("rewritten"));
+    }
+    try (EmbeddedStore store = open()) {
+      assertArrayEquals(bytes("rewritten"), store.get(EmbeddedStore.ENTRIES, second));
+    }
+  }
+
+  @Test
+  public void open_WhenIndexPointsPastLog_ShouldRebuildFromLog() throws Exception {
+    // Given
+    ObjectId id = new ObjectId();
+    try (EmbeddedStore store = open()) {
+      store.put(EmbeddedStore.ENTRIES, id, bytes("value"));
+    }
+    try (MappedIndex index = new MappedIndex(dir.resolve("entries.idx"))) {
+      index.put(new ObjectId(), SegmentLog.location(1, 1 << 20), 100);
+    }
+
+    // When
+    try (EmbeddedStore store = open()) {
+
+      // Then
+      assertEquals(1, store.size(EmbeddedStore.ENTRIES));
+      assertArrayEquals(bytes("value"), store.get(EmbeddedStore.ENTRIES, id));
+    }
+  }
+
+  @Test
+  public void commit_InTransaction_ShouldApplyAllWritesTogether() throws Exception {
+    try (EmbeddedStore store = open()) {
+      // Given
+      TransactionTemplate transaction =
+          new TransactionTemplate(new EmbeddedTransactionManager(store));
+      ObjectId entry = new ObjectId();
+      ObjectId user = new ObjectId();
+      List<ObjectId> committed = new ArrayList<>();
+      store.addListener(EmbeddedStore.ENTRIES, (id, payload) -> committed.add(id));
+
+      // When
+      transaction.executeWithoutResult(status -> {
+        store.put(EmbeddedStore.ENTRIES, entry, bytes("entry"));
+        store.put(EmbeddedStore.USERS, user, bytes("user"));
+        // Visible to the transaction itself before commit
+        assertArrayEquals(bytes("entry"), store.get(EmbeddedStore.ENTRIES, entry));
+        assertTrue(committed.isEmpty());
+      });
+      ObjectId rolledBack = new ObjectId();
+      transaction.executeWithoutResult(status -> {
+        store.put(EmbeddedStore.ENTRIES, rolledBack, bytes("rolled back"));
+        status.setRollbackOnly();
+      });
+
+      // Then
+      assertEquals(List.of(entry), committed);
+      assertArrayEquals(bytes("user"), store.get(EmbeddedStore.USERS, user));
+      assertNull(store.get(EmbeddedStore.ENTRIES, rolledBack));
+    }
+  }
+
+  @Test
+  public void commit_WhenReadRecordChangedConcurrently_ShouldFailWithConflict()
+      throws Exception {
+    try (EmbeddedStore store = open()) {
+      // Given
+      TransactionTemplate transaction =
+          new TransactionTemplate(new EmbeddedTransactionManager(store));
+      ObjectId id = new ObjectId();
+      store.put(EmbeddedStore.ENTRIES, id, bytes("original"));
+
+      // When
+      ConcurrencyFailureException conflict = assertThrows(ConcurrencyFailureException.class,
+          () -> transaction.executeWithoutResult(status -> {
+            byte[] read = store.get(EmbeddedStore.ENTRIES, id);
+            // Another thread commits in between, outside this transaction
+            CompletableFuture.runAsync(
+                () -> store.put(EmbeddedStore.ENTRIES, id, bytes("concurrent"))).join();
+            store.put(EmbeddedStore.ENTRIES, id, bytes(new String(read) + " updated"));
+          }));
+
+      // Then
+      assertTrue(conflict.getMessage().contains(id.toHexString()));
+      assertArrayEquals(bytes("concurrent"), store.get(EmbeddedStore.ENTRIES, id));
+      transaction.executeWithoutResult(status -> {
+        byte[] read = store.get(EmbeddedStore.ENTRIES, id);
+        store.put(EmbeddedStore.ENTRIES, id, bytes(new String(read) + " updated"));
+      });
+      assertArrayEquals(bytes("concurrent updated"), store.get(EmbeddedStore.ENTRIES, id));
+    }
+  }
+
+  @Test
+  public void open_WhenIndexHeaderCountsAreStale_ShouldRecountSlots() throws Exception {
+    // Given
+    List<ObjectId> ids = new ArrayList<>();
+    try (EmbeddedStore store = open()) {
+      for (int i = 0; i < 5; i++) {
+        ObjectId id = new ObjectId();
+        ids.add(id);
+        store.put(EmbeddedStore.ENTRIES, id, bytes("entry " + i));
+      }
+      store.delete(EmbeddedStore.ENTRIES, ids.get(0));
+    }
+    // Counts as left by a crash between a slot write and the header update
+    try (FileChannel channel =
+        FileChannel.open(dir.resolve("entries.idx"), StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.allocate(8).putInt(42).putInt(0).flip(), 12);
+    }
+
+    // When
+    try (EmbeddedStore store = open()) {
+
+      // Then
+      assertEquals(4, store.size(EmbeddedStore.ENTRIES));
+      for (int i = 1; i < ids.size(); i++) {
+        assertArrayEquals(bytes("entry " + i), store.get(EmbeddedStore.ENTRIES, ids.get(i)));
+      }
+    }
+  }
+
+  @Test
+  public void compact_WhenSegmentsAreMostlyDead_ShouldDeleteThemAndKeepLiveData()
+      throws Exception {
+    // Given
+    ObjectId live = new ObjectId();
+    ObjectId deleted = new ObjectId();
+    byte[] filler = new byte[500];
+    try (EmbeddedStore store = open()) {
+      store.put(EmbeddedStore.ENTRIES, live, bytes("live"));
+      store.put(EmbeddedStore.ENTRIES, deleted, bytes("deleted"));
+      for (int i = 0; i < 40; i++) {
+        store.put(EmbeddedStore.USERS, live, filler);
+      }
+      store.delete(EmbeddedStore.ENTRIES, deleted);
+      long segmentsBefore = segmentCount();
+
+      // When
+      int compacted = store.compact();
+
+      // Then
+      assertTrue(compacted > 0);
+      assertTrue(segmentCount() < segmentsBefore);
+      assertFalse(Files.exists(dir.resolve("segment-000001.log")));
+      assertArrayEquals(bytes("live"), store.get(EmbeddedStore.ENTRIES, live));
+      assertArrayEquals(filler, store.get(EmbeddedStore.USERS, live));
+      assertNull(store.get(EmbeddedStore.ENTRIES, deleted));
+    }
+    // A full rebuild from the compacted log must not bring the deleted entry back
+    Files.delete(dir.resolve("entries.idx"));
+    Files.delete(dir.resolve("users.idx"));
+    try (EmbeddedStore store = open()) {
+      assertArrayEquals(bytes("live"), store.get(EmbeddedStore.ENTRIES, live));
+      assertArrayEquals(filler, store.get(EmbeddedStore.USERS, live));
+      assertNull(store.get(EmbeddedStore.ENTRIES, deleted));
+    }
+  }
+
+  @Test
+  public void compact_WhenDeleteShadowsNoOlderPut_ShouldDropTheTombstone() throws Exception {
+    // Given
+    byte[] filler = new byte[500];
+    ObjectId temporary = new ObjectId();
+    try (EmbeddedStore store = open()) {
+      // A first segment that stays live, so older segments exist while the rest is compacted
+      for (int i = 0; i < 8; i++) {
+        store.put(EmbeddedStore.USERS, new ObjectId(), filler);
+      }
+      // Put and delete land in the same batch, so no older segment holds the put
+      new TransactionTemplate(new EmbeddedTransactionManager(store))
+          .executeWithoutResult(status -> {
+            store.put(EmbeddedStore.ENTRIES, temporary, bytes("temporary"));
+            store.delete(EmbeddedStore.ENTRIES, temporary);
+          });
+      ObjectId hot = new ObjectId();
+      for (int i = 0; i < 40; i++) {
+        store.put(EmbeddedStore.USERS, hot, filler);
+      }
+
+      // When
+      store.compact();
+
+      // Then
+      assertTrue(Files.exists(dir.resolve("segment-000001.log")));
+      assertNull(store.get(EmbeddedStore.ENTRIES, temporary));
+    }
+    List<ObjectId> deletes = new ArrayList<>();
+    try (SegmentLog log = new SegmentLog(dir, SEGMENT_SIZE, true)) {
+      log.replay(log.start(), record -> {
+        if (record.op() == SegmentLog.DELETE) {
+          deletes.add(record.id());
+        }
+      });
+    }
+    assertEquals(List.of(), deletes);
+  }
+
+  @Test
+  public void put_WhenIndexGrowsPastCapacity_ShouldKeepEveryId() throws Exception {
+    // Given
+    List<ObjectId> ids = new ArrayList<>();
+    try (EmbeddedStore store = new EmbeddedStore(dir, 1 << 20, false, null, 0.5)) {
+
+      // When
+      for (int i = 0; i < MappedIndex.MIN_CAPACITY; i++) {
+        ObjectId id = new ObjectId();
+        ids.add(id);
+        store.put(EmbeddedStore.ENTRIES, id, ByteBuffer.allocate(4).putInt(i).array());
+      }
+
+      // Then
+      assertEquals(ids.size(), store.size(EmbeddedStore.ENTRIES));
+      for (int i = 0; i < ids.size(); i++) {
+        assertEquals(i, ByteBuffer.wrap(store.get(EmbeddedStore.ENTRIES, ids.get(i))).getInt());
+      }
+    }
+  }
+
+  private EmbeddedStore open() throws Exception {
+    return new EmbeddedStore(dir, SEGMENT_SIZE, true, null, 0.5);
+  }
+
+  private long segmentCount() throws Exception {
+    try (Stream<Path> files = Files.list(dir)) {
+      return files.filter(file -> file.getFileName().toString().endsWith(".log")).count();
+    }
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+}